@@ -0,0 +1,12 @@
+//represents the neighbors of every cell of a board in compressed sparse rows: the
+//neighbors of cell i are neighbors[offsets[i]] up to neighbors[offsets[i + 1]]
+class Adjacency {
+  final int[] offsets;
+  final int[] neighbors;
+
+  // constructor
+  Adjacency(int[] offsets, int[] neighbors) {
+    this.offsets = offsets;
+    this.neighbors = neighbors;
+  }
+}
@@ -0,0 +1,153 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+//represents one running search of a MoveAdvisor, with its result and statistics
+class Advice {
+  // the chance a rollout plays a random bordering color instead of the greedy one
+  static final double EXPLORE = 0.25;
+
+  final Board board;
+  final int floodColor;
+  RegionEngine root;
+  volatile int[] firstMoves;
+  final int colorsUsed;
+  final long deadline;
+  final long started = System.nanoTime();
+  final CompletableFuture<Integer> result = new CompletableFuture<Integer>();
+  volatile boolean cancelled;
+  // the shortest rollout so far, as its length shifted left by 8 bits plus its first move
+  final AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+  final AtomicInteger running;
+  final LongAdder rollouts = new LongAdder();
+  final LongAdder nodes = new LongAdder();
+  final AtomicInteger maxDepth = new AtomicInteger();
+
+  // constructor
+  Advice(Board board, int floodColor, int colorsUsed, long deadline, int workers) {
+    this.board = board;
+    this.floodColor = floodColor;
+    this.colorsUsed = colorsUsed;
+    this.deadline = deadline;
+    this.running = new AtomicInteger(workers);
+  }
+
+  // finishes any flood still spreading on the board and builds the region graph the
+  // rollouts start from
+  void prepare() {
+    Frontier frontier = new Frontier(this.board.cells);
+    frontier.add(0);
+    while (frontier.size() > 0) {
+      this.board.floodStep(frontier, this.floodColor);
+    }
+    this.root = new RegionEngine();
+    this.root.load(this.board);
+    int count = 0;
+    int[] moves = new int[Board.PALETTE];
+    for (int c = 0; c < this.colorsUsed; c++) {
+      if (this.root.borderCount[c] > 0) {
+        moves[count++] = c;
+      }
+    }
+    this.firstMoves = Arrays.copyOf(moves, count);
+  }
+
+  // returns true while the search should keep going
+  boolean searching() {
+    return !this.cancelled && System.nanoTime() < this.deadline;
+  }
+
+  // plays rollouts until the deadline or cancellation, trying each first move in turn.
+  // a rollout is abandoned once it is no shorter than the best game found
+  void work(Random rand) {
+    int[] firstMoves = this.firstMoves;
+    int next = rand.nextInt(Math.max(1, firstMoves.length));
+    while (firstMoves.length > 0 && this.searching()) {
+      int first = firstMoves[next++ % firstMoves.length];
+      RegionEngine game = this.root.copy();
+      game.move(first);
+      int moves = 1;
+      while (game.floodedCount() < game.board.cells && moves < this.best.get() >>> 8
+          && this.searching()) {
+        game.move(this.rolloutMove(game, rand));
+        moves++;
+      }
+      this.nodes.add(moves);
+      this.rollouts.increment();
+      this.maxDepth.accumulateAndGet(moves, Math::max);
+      if (game.floodedCount() == game.board.cells) {
+        this.best.accumulateAndGet(((long) moves << 8) | first, Math::min);
+      }
+    }
+    if (this.running.decrementAndGet() == 0) {
+      this.result.complete(this.bestColor());
+    }
+  }
+
+  // returns the greedy move of the game, or now and then a random bordering color
+  int rolloutMove(RegionEngine game, Random rand) {
+    int best = -1;
+    int bestGain = 0;
+    int seen = 0;
+    boolean explore = rand.nextDouble() < EXPLORE;
+    for (int c = 0; c < this.colorsUsed; c++) {
+      int gain = game.gain(c);
+      if (gain > 0) {
+        seen++;
+        if (explore ? rand.nextInt(seen) == 0 : gain > bestGain) {
+          best = c;
+          bestGain = gain;
+        }
+      }
+    }
+    return best;
+  }
+
+  // stops the search early; the result is the best move found so far
+  void cancel() {
+    this.cancelled = true;
+  }
+
+  // returns true once the search has finished
+  boolean isDone() {
+    return this.result.isDone();
+  }
+
+  // returns the first move of the shortest game found so far. if no game has finished
+  // yet this is the greedy move, and -1 if the board is already flooded or the search
+  // has not started
+  int bestColor() {
+    long best = this.best.get();
+    if (best != Long.MAX_VALUE) {
+      return (int) (best & 0xFF);
+    }
+    int greedy = -1;
+    for (int c = 0; this.firstMoves != null && c < this.colorsUsed; c++) {
+      if (this.root.gain(c) > 0 && (greedy < 0 || this.root.gain(c) > this.root.gain(greedy))) {
+        greedy = c;
+      }
+    }
+    return greedy;
+  }
+
+  // returns the length of the shortest game found so far
+  int bestLength() {
+    long best = this.best.get();
+    return best == Long.MAX_VALUE ? -1 : (int) (best >>> 8);
+  }
+
+  // returns the number of moves simulated per second so far
+  double nodesPerSecond() {
+    return this.nodes.sum() / ((System.nanoTime() - this.started) / 1e9);
+  }
+
+  // describes the search statistics
+  public String toString() {
+    return String.format("best %d (%d moves) after %d rollouts, %.0f nodes/sec, depth %d",
+        this.bestColor(), this.bestLength(), this.rollouts.sum(), this.nodesPerSecond(),
+        this.maxDepth.get());
+  }
+}
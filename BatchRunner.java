@@ -0,0 +1,106 @@
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+//represents playing the games for a range of seeds, splitting the range across the
+//fork-join pool
+class BatchTask extends RecursiveTask<BatchStats> {
+  static final long serialVersionUID = 1L;
+  // the number of games below which a task plays its games itself
+  static final int THRESHOLD = 64;
+
+  final int colorsUsed;
+  final int size;
+  final MovePolicy policy;
+  final long from;
+  final long to;
+
+  // constructor
+  BatchTask(int colorsUsed, int size, MovePolicy policy, long from, long to) {
+    this.colorsUsed = colorsUsed;
+    this.size = size;
+    this.policy = policy;
+    this.from = from;
+    this.to = to;
+  }
+
+  // plays the games for seeds from up to to
+  protected BatchStats compute() {
+    if (this.to - this.from > THRESHOLD) {
+      long mid = (this.from + this.to) >>> 1;
+      BatchTask left = new BatchTask(this.colorsUsed, this.size, this.policy, this.from, mid);
+      left.fork();
+      BatchStats right =
+          new BatchTask(this.colorsUsed, this.size, this.policy, mid, this.to).compute();
+      return right.merge(left.join());
+    }
+    BatchStats stats = new BatchStats();
+    for (long seed = this.from; seed < this.to; seed++) {
+      FloodItGame game =
+          new FloodItGame(this.colorsUsed, this.size, new Random(seed), new RegionEngine());
+      int limit = game.movesLimit;
+      stats.record(BatchRunner.play(game, this.policy, new Random(~seed)), limit);
+    }
+    return stats;
+  }
+}
+
+//plays batches of seeded headless games on every core and reports how they went. run with
+//"java BatchRunner games size colors [random|greedy] [threads]"
+class BatchRunner {
+  public static void main(String[] args) {
+    long games = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+    int size = args.length > 1 ? Integer.parseInt(args[1]) : 14;
+    int colors = args.length > 2 ? Integer.parseInt(args[2]) : 6;
+    MovePolicy policy =
+        args.length > 3 && args[3].equals("random") ? new RandomPolicy() : new GreedyPolicy();
+    int threads =
+        args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+    long start = System.nanoTime();
+    BatchStats stats = run(colors, size, policy, 0, games, threads);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    report(stats, seconds, size, colors, threads);
+  }
+
+  // plays the games for seeds from up to to on a pool with the given number of threads
+  static BatchStats run(int colors, int size, MovePolicy policy, long from, long to,
+      int threads) {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.invoke(new BatchTask(colors, size, policy, from, to));
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  // plays the game with the policy until the board is flooded, ignoring the move limit,
+  // and returns the number of moves it took
+  static int play(FloodItGame game, MovePolicy policy, Random rand) {
+    int moves = 0;
+    while (!game.checkWin()) {
+      game.move(policy.choose(game, rand));
+      game.settle();
+      moves++;
+    }
+    return moves;
+  }
+
+  // prints the throughput, win rate and move distribution of a batch
+  static void report(BatchStats stats, double seconds, int size, int colors, int threads) {
+    System.out.printf("%d games of %dx%d with %d colors on %d threads in %.2f s%n",
+        stats.games, size, size, colors, threads, seconds);
+    System.out.printf("%.0f games/sec%n", stats.games / seconds);
+    System.out.printf("win rate within the move limit of %d moves: %.2f%%%n", stats.limit,
+        100.0 * stats.wins / stats.games);
+    System.out.printf("moves: mean %.2f  p50 %d  p90 %d  p99 %d  max %d%n",
+        (double) stats.totalMoves / stats.games, stats.percentile(0.5), stats.percentile(0.9),
+        stats.percentile(0.99), stats.percentile(1.0));
+    for (int m = 0; m < stats.movesHistogram.length; m++) {
+      if (stats.movesHistogram[m] > 0) {
+        System.out.printf("%4d moves %10d games%n", m, stats.movesHistogram[m]);
+      }
+    }
+  }
+}
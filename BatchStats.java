@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+//represents the outcome of a batch of games
+class BatchStats {
+  long games;
+  long wins;
+  long totalMoves;
+  // the largest move limit a game was dealt with
+  int limit;
+  // movesHistogram[m] is the number of games that took m moves to flood the board
+  long[] movesHistogram = new long[64];
+
+  // records a game that took the given number of moves, won if it stayed within limit
+  void record(int moves, int limit) {
+    this.games++;
+    this.totalMoves += moves;
+    this.limit = Math.max(this.limit, limit);
+    if (moves <= limit) {
+      this.wins++;
+    }
+    if (moves >= this.movesHistogram.length) {
+      this.movesHistogram = Arrays.copyOf(this.movesHistogram,
+          Math.max(moves + 1, this.movesHistogram.length * 2));
+    }
+    this.movesHistogram[moves]++;
+  }
+
+  // adds the games recorded in that to this
+  BatchStats merge(BatchStats that) {
+    this.games += that.games;
+    this.wins += that.wins;
+    this.totalMoves += that.totalMoves;
+    this.limit = Math.max(this.limit, that.limit);
+    if (that.movesHistogram.length > this.movesHistogram.length) {
+      this.movesHistogram = Arrays.copyOf(this.movesHistogram, that.movesHistogram.length);
+    }
+    for (int m = 0; m < that.movesHistogram.length; m++) {
+      this.movesHistogram[m] += that.movesHistogram[m];
+    }
+    return this;
+  }
+
+  // returns the smallest move count that at least the fraction p of the games needed
+  int percentile(double p) {
+    long seen = 0;
+    for (int m = 0; m < this.movesHistogram.length; m++) {
+      seen += this.movesHistogram[m];
+      if (seen >= Math.ceil(p * this.games)) {
+        return m;
+      }
+    }
+    return this.movesHistogram.length - 1;
+  }
+}
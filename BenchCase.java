@@ -0,0 +1,29 @@
+//represents one benchmarked path of the game
+abstract class BenchCase {
+  final String name;
+
+  // constructor
+  BenchCase(String name) {
+    this.name = name;
+  }
+
+  // returns true if the case runs at the given board size
+  boolean accepts(int size) {
+    return true;
+  }
+
+  // builds the state the case runs on
+  abstract void setup(int size, int colors);
+
+  // gets ready for the next call of run, outside the timed region
+  void prepare() {
+  }
+
+  // runs the benchmarked path batch() times and returns something that depends on it
+  abstract long run();
+
+  // returns the number of operations one call of run performs
+  int batch() {
+    return 1;
+  }
+}
@@ -0,0 +1,75 @@
+//represents the measurements of one case at one board size and color count
+class BenchResult {
+  // two sided 99.9% Student's t quantiles by degrees of freedom, as JMH reports errors
+  static final double[] T999 = { 636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78,
+      4.59 };
+
+  final String name;
+  final int size;
+  final int colors;
+  // the mean nanoseconds per operation of every measurement iteration
+  final double[] scores;
+  final double bytesPerOp;
+
+  // constructor
+  BenchResult(String name, int size, int colors, double[] scores, double bytesPerOp) {
+    this.name = name;
+    this.size = size;
+    this.colors = colors;
+    this.scores = scores;
+    this.bytesPerOp = bytesPerOp;
+  }
+
+  // returns the mean of the iterations
+  double score() {
+    double sum = 0;
+    for (double s : this.scores) {
+      sum += s;
+    }
+    return sum / this.scores.length;
+  }
+
+  // returns the half width of the 99.9% confidence interval of the score
+  double error() {
+    int n = this.scores.length;
+    if (n < 2) {
+      return Double.NaN;
+    }
+    double mean = this.score();
+    double squares = 0;
+    for (double s : this.scores) {
+      squares += (s - mean) * (s - mean);
+    }
+    double t = n - 1 <= T999.length ? T999[n - 2] : 3.29;
+    return t * Math.sqrt(squares / (n - 1) / n);
+  }
+
+  // describes the result in one line
+  public String toString() {
+    return String.format("%-15s %5dx%-5d %d colors %16.1f +- %14.1f ns/op %14.1f B/op",
+        this.name, this.size, this.size, this.colors, this.score(), this.error(),
+        this.bytesPerOp);
+  }
+
+  // formats the result as one JMH style JSON object
+  String toJson() {
+    StringBuilder raw = new StringBuilder();
+    for (int k = 0; k < this.scores.length; k++) {
+      raw.append(k > 0 ? ", " : "").append(this.scores[k]);
+    }
+    return "  {\n"
+        + "    \"benchmark\": \"FloodItBench." + this.name + "\",\n"
+        + "    \"mode\": \"avgt\",\n"
+        + "    \"jdkVersion\": \"" + System.getProperty("java.version") + "\",\n"
+        + "    \"warmupIterations\": " + FloodItBench.WARMUP + ",\n"
+        + "    \"measurementIterations\": " + this.scores.length + ",\n"
+        + "    \"measurementTime\": \"" + FloodItBench.ITERATION_MILLIS + " ms\",\n"
+        + "    \"params\": { \"size\": \"" + this.size + "\", \"colors\": \"" + this.colors
+        + "\", \"seed\": \"" + FloodItBench.SEED + "\" },\n"
+        + "    \"primaryMetric\": { \"score\": " + this.score() + ", \"scoreError\": "
+        + this.error() + ", \"scoreUnit\": \"ns/op\", \"rawData\": [[" + raw + "]] },\n"
+        + "    \"secondaryMetrics\": { \"gc.alloc.rate.norm\": { \"score\": "
+        + this.bytesPerOp + ", \"scoreUnit\": \"B/op\" } }\n"
+        + "  }";
+  }
+}
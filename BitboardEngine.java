@@ -0,0 +1,207 @@
+//represents the board as bitboards: a plane per palette color and a plane of flooded
+//cells, each stored as rows of longs with bit b of word w of row r standing for the cell
+//in column 64 * w + b. a move grows the flooded plane into the plane of its color 64
+//cells at a time, filling along rows with carries and spreading between rows with masks,
+//sweeping down and up the board until nothing more changes
+class BitboardEngine implements FloodEngine {
+  Board board;
+  int size;
+  // the number of longs in every row
+  int words;
+  // the cells of each palette color on the board as loaded
+  long[][] planes;
+  // the flooded cells
+  long[] flooded;
+  // the rows below this one hold no flooded cells
+  int floodedRows;
+  // the number of sweeps made over the rows, and the last sweep that changed each row
+  int sweep;
+  int[] changed;
+  int floodedCount;
+  int color;
+  // the journal the cells newly flooded by every move are added to, or null
+  MoveJournal journal;
+
+  // returns true for GRID4, the only topology that can be flooded along the bitboard rows
+  public boolean supports(Topology topology) {
+    return topology == Topology.GRID4;
+  }
+
+  // rebuilds the engine's state from the given board and floods the region of its
+  // top-left cell
+  public void load(Board board) {
+    if (!this.supports(board.topology)) {
+      throw new IllegalArgumentException("Cannot flood a " + board.topology + " board");
+    }
+    this.board = board;
+    this.size = board.size;
+    this.words = (board.size + 63) >>> 6;
+    this.planes = new long[Board.PALETTE][this.size * this.words];
+    for (int i = 0; i < board.cells; i++) {
+      int r = i / this.size;
+      int col = i - r * this.size;
+      this.planes[board.colors[i]][r * this.words + (col >>> 6)] |= 1L << col;
+    }
+    this.flooded = new long[this.size * this.words];
+    this.changed = new int[this.size];
+    this.sweep = 0;
+    this.flooded[0] = 1L;
+    this.floodedRows = 1;
+    this.floodedCount = 1;
+    this.move(board.colors[0]);
+  }
+
+  // floods every cell of the palette color c connected to the flooded cells. the first
+  // sweep visits every row that may hold flooded cells, and every later sweep, in the
+  // other direction, only the rows next to a row that changed in the sweep before or in
+  // this one
+  public void move(int c) {
+    this.color = c;
+    int first = ++this.sweep;
+    int lo = 0;
+    int hi = Math.min(this.size - 1, this.floodedRows);
+    boolean down = true;
+    while (true) {
+      int s = this.sweep;
+      int changedLo = this.size;
+      int changedHi = -1;
+      for (int k = lo; k <= hi; k++) {
+        int r = down ? k : lo + hi - k;
+        if ((s == first || this.active(r, s - 1)) && this.fillRow(r, c)) {
+          this.changed[r] = s;
+          changedLo = Math.min(changedLo, r);
+          changedHi = Math.max(changedHi, r);
+          if (down && r == hi && hi + 1 < this.size) {
+            hi++;
+          }
+        }
+      }
+      if (changedHi < 0) {
+        return;
+      }
+      lo = Math.max(0, changedLo - 1);
+      hi = Math.min(this.size - 1, changedHi + 1);
+      this.sweep++;
+      down = !down;
+    }
+  }
+
+  // returns true if row r or a row next to it changed in sweep s or later
+  boolean active(int r, int s) {
+    return this.changed[r] >= s || (r > 0 && this.changed[r - 1] >= s)
+        || (r + 1 < this.size && this.changed[r + 1] >= s);
+  }
+
+  // floods the cells of row r of the color c that are connected along the row to a
+  // flooded cell of the row or to a flooded cell just above or below. returns true if
+  // any cell was flooded
+  boolean fillRow(int r, int c) {
+    long[] fl = this.flooded;
+    long[] plane = this.planes[c];
+    int base = r * this.words;
+    int above = r > 0 ? base - this.words : -1;
+    int below = r + 1 < this.size ? base + this.words : -1;
+    int gained = 0;
+    // fill towards higher columns from the flooded cells of the row and the cells
+    // flooded above and below, carrying across words
+    long carry = 0;
+    for (int w = 0; w < this.words; w++) {
+      long old = fl[base + w];
+      long mask = plane[base + w] | old;
+      long near = (above >= 0 ? fl[above + w] : 0) | (below >= 0 ? fl[below + w] : 0);
+      long seeds = old | (near & mask) | (carry & mask & 1L);
+      long filled = (((mask + seeds) ^ mask) & mask) | seeds;
+      gained += Long.bitCount(filled & ~old);
+      this.journalBits(r, w, filled & ~old);
+      fl[base + w] = filled;
+      carry = filled >>> 63;
+    }
+    // fill towards lower columns, carrying across words
+    carry = 0;
+    for (int w = this.words - 1; w >= 0; w--) {
+      long old = fl[base + w];
+      long mask = Long.reverse(plane[base + w] | old);
+      long seeds = Long.reverse(old) | (carry & mask & 1L);
+      long filled = Long.reverse((((mask + seeds) ^ mask) & mask) | seeds);
+      gained += Long.bitCount(filled & ~old);
+      this.journalBits(r, w, filled & ~old);
+      fl[base + w] = filled;
+      carry = filled & 1L;
+    }
+    if (gained == 0) {
+      return false;
+    }
+    this.floodedCount += gained;
+    this.floodedRows = Math.max(this.floodedRows, r + 1);
+    return true;
+  }
+
+  // adds the cells of the given bits of word w of row r to the journal, if there is one
+  void journalBits(int r, int w, long bits) {
+    if (this.journal == null) {
+      return;
+    }
+    while (bits != 0) {
+      this.journal.add(r * this.size + (w << 6) + Long.numberOfTrailingZeros(bits));
+      bits &= bits - 1;
+    }
+  }
+
+  // returns the palette color of the flooded region
+  public int color() {
+    return this.color;
+  }
+
+  // returns the palette color of the given cell
+  public int colorAt(int i) {
+    return this.isFlooded(i) ? this.color : this.board.colors[i];
+  }
+
+  // returns true if the given cell is flooded
+  boolean isFlooded(int i) {
+    int r = i / this.size;
+    int col = i - r * this.size;
+    return (this.flooded[r * this.words + (col >>> 6)] & (1L << col)) != 0;
+  }
+
+  // returns the number of flooded cells
+  public int floodedCount() {
+    return this.floodedCount;
+  }
+
+  // recolors and floods every flooded cell
+  public void store() {
+    for (int r = 0; r < this.size && r < this.floodedRows; r++) {
+      for (int w = 0; w < this.words; w++) {
+        long bits = this.flooded[r * this.words + w];
+        while (bits != 0) {
+          int i = r * this.size + (w << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          this.board.setFlooded(i);
+          this.board.setColor(i, this.color);
+        }
+      }
+    }
+  }
+
+  // adds the cells every later move newly floods to the given journal
+  public void journal(MoveJournal journal) {
+    this.journal = journal;
+  }
+
+  // takes back the last move by clearing the flooded bits of its cells, at a cost in the
+  // number of cells it flooded
+  public void undo(int prev, int c, int[] cells, int count) {
+    for (int k = 0; k < count; k++) {
+      int i = cells[k];
+      int r = i / this.size;
+      int col = i - r * this.size;
+      this.flooded[r * this.words + (col >>> 6)] &= ~(1L << col);
+      this.board.unflood(i);
+      this.board.setColor(i, c);
+    }
+    this.floodedCount -= count;
+    this.color = prev;
+  }
+
+}
@@ -0,0 +1,201 @@
+import java.util.Arrays;
+import java.util.Random;
+
+//represents the cells of a square game board as flat primitive arrays: a palette index
+//per cell and a bitset of flooded cells. on GRID4 boards neighbors are computed from the
+//cell index, and on every other topology they are read from its Adjacency
+class Board {
+  // the number of palette indices a cell can hold, the size of FloodItWorld.randColor
+  static final int PALETTE = 8;
+
+  // the number of cells along each side of the board
+  final int size;
+  // the total number of cells on the board
+  final int cells;
+  // the palette index of every cell, in the same order FloodItWorld.grid uses
+  final byte[] colors;
+  // one bit per cell, set once the cell has been flooded
+  final long[] flooded;
+  // the number of flooded cells, in total and by palette index, kept up to date as cells
+  // are flooded and recolored so that win checks never have to scan the board
+  int floodedCount;
+  final int[] floodedByColor = new int[PALETTE];
+  // which cells touch, and their neighbors unless the topology is GRID4
+  final Topology topology;
+  final Adjacency adjacency;
+
+  // constructor, for a GRID4 board
+  Board(int size) {
+    this(size, Topology.GRID4);
+  }
+
+  // constructor
+  Board(int size, Topology topology) {
+    this(size, topology, topology == Topology.GRID4 ? null : topology.adjacency(size));
+  }
+
+  // constructor, sharing the given neighbors, which never change
+  Board(int size, Topology topology, Adjacency adjacency) {
+    if (size < 1 || size > 46340) {
+      throw new IllegalArgumentException("Board size must be between 1 and 46340");
+    }
+    this.size = size;
+    this.cells = size * size;
+    this.colors = new byte[this.cells];
+    this.flooded = new long[(this.cells + 63) >>> 6];
+    this.topology = topology;
+    this.adjacency = adjacency;
+  }
+
+  // gives every cell a random palette index below colorsUsed and floods the top-left
+  // corner. one rand.nextInt(colorsUsed) is drawn per cell in index order, so a seeded
+  // Random always produces the same board
+  void fill(Random rand, int colorsUsed) {
+    byte[] colors = this.colors;
+    for (int i = 0; i < colors.length; i++) {
+      colors[i] = (byte) rand.nextInt(colorsUsed);
+    }
+    Arrays.fill(this.flooded, 0L);
+    Arrays.fill(this.floodedByColor, 0);
+    this.floodedCount = 0;
+    this.setFlooded(0);
+  }
+
+  // returns a copy of this board
+  Board copy() {
+    Board copy = new Board(this.size, this.topology, this.adjacency);
+    System.arraycopy(this.colors, 0, copy.colors, 0, this.cells);
+    System.arraycopy(this.flooded, 0, copy.flooded, 0, this.flooded.length);
+    System.arraycopy(this.floodedByColor, 0, copy.floodedByColor, 0, PALETTE);
+    copy.floodedCount = this.floodedCount;
+    return copy;
+  }
+
+  // returns the palette index of the given cell
+  int color(int i) {
+    return this.colors[i];
+  }
+
+  // sets the palette index of the given cell
+  void setColor(int i, int c) {
+    if (this.isFlooded(i)) {
+      this.floodedByColor[this.colors[i]]--;
+      this.floodedByColor[c]++;
+    }
+    this.colors[i] = (byte) c;
+  }
+
+  // returns true if the given cell is flooded
+  boolean isFlooded(int i) {
+    return (this.flooded[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // marks the given cell as flooded
+  void setFlooded(int i) {
+    if (!this.isFlooded(i)) {
+      this.flooded[i >>> 6] |= 1L << i;
+      this.floodedCount++;
+      this.floodedByColor[this.colors[i]]++;
+    }
+  }
+
+  // marks the given cell as not flooded
+  void unflood(int i) {
+    if (this.isFlooded(i)) {
+      this.flooded[i >>> 6] &= ~(1L << i);
+      this.floodedCount--;
+      this.floodedByColor[this.colors[i]]--;
+    }
+  }
+
+  // gives every flooded cell the palette index c
+  void recolorFlooded(int c) {
+    for (int w = 0; w < this.flooded.length; w++) {
+      long bits = this.flooded[w];
+      while (bits != 0) {
+        this.colors[(w << 6) + Long.numberOfTrailingZeros(bits)] = (byte) c;
+        bits &= bits - 1;
+      }
+    }
+    Arrays.fill(this.floodedByColor, 0);
+    this.floodedByColor[c] = this.floodedCount;
+  }
+
+  // returns the index of the cell above the given one, or -1 if there is none
+  int top(int i) {
+    return i >= this.size ? i - this.size : -1;
+  }
+
+  // returns the index of the cell to the left of the given one, or -1 if there is none
+  int left(int i) {
+    return i % this.size != 0 ? i - 1 : -1;
+  }
+
+  // returns the index of the cell to the right of the given one, or -1 if there is none
+  int right(int i) {
+    return i % this.size != this.size - 1 ? i + 1 : -1;
+  }
+
+  // returns the index of the cell below the given one, or -1 if there is none
+  int bottom(int i) {
+    return i < this.cells - this.size ? i + this.size : -1;
+  }
+
+  // floods every cell queued in the frontier with the color c, replacing them with every
+  // neighbor that needs to be flooded on the following tick. on GRID4 boards neighbors are
+  // visited in the same order as Cell.floodCell, so the wave grows exactly as it did on
+  // the Cell graph
+  void floodStep(Frontier frontier, int c) {
+    this.floodStep(frontier, c, null);
+  }
+
+  // floods like floodStep, adding every cell it newly floods to the given journal unless
+  // it is null
+  void floodStep(Frontier frontier, int c, MoveJournal journal) {
+    frontier.nextGeneration();
+    for (int n = frontier.size(); n > 0; n--) {
+      int i = frontier.poll();
+      if (this.isFlooded(i)) {
+        this.floodedByColor[this.colors[i]]--;
+      }
+      else {
+        this.flooded[i >>> 6] |= 1L << i;
+        this.floodedCount++;
+        if (journal != null) {
+          journal.add(i);
+        }
+      }
+      this.floodedByColor[c]++;
+      this.colors[i] = (byte) c;
+      if (this.adjacency != null) {
+        int[] neighbors = this.adjacency.neighbors;
+        for (int k = this.adjacency.offsets[i]; k < this.adjacency.offsets[i + 1]; k++) {
+          this.needsFlood(neighbors[k], c, frontier);
+        }
+      }
+      else {
+        this.needsFlood(this.top(i), c, frontier);
+        this.needsFlood(this.left(i), c, frontier);
+        this.needsFlood(this.right(i), c, frontier);
+        this.needsFlood(this.bottom(i), c, frontier);
+      }
+    }
+  }
+
+  // queues the given cell if it exists and is flooded XOR of the color c
+  void needsFlood(int i, int c, Frontier frontier) {
+    if (i >= 0 && ((this.colors[i] == c) ^ this.isFlooded(i))) {
+      frontier.add(i);
+    }
+  }
+
+  // returns true if every cell is flooded and of the color c
+  boolean allFlooded(int c) {
+    return c >= 0 && this.floodedCount == this.cells && this.floodedByColor[c] == this.cells;
+  }
+
+  // returns true if every flooded cell is of the color c
+  boolean monochrome(int c) {
+    return c >= 0 && this.floodedByColor[c] == this.floodedCount;
+  }
+}
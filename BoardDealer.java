@@ -0,0 +1,109 @@
+import java.util.Random;
+
+//represents a game's boards dealt ahead on a background thread while the current one is
+//played. the dealer holds two boards in turn: it fills the one handed back to it from the
+//game's Random while the other is played, and deal swaps them, so no board is allocated
+//after the first and a reset only waits if the next board is not filled yet. boards are
+//filled one at a time, in the order they are dealt, so a seeded Random deals the same
+//boards as it would on the game's thread
+class BoardDealer implements Runnable {
+  final Random rand;
+  final int colorsUsed;
+  final Thread thread;
+  // the board filled and waiting to be dealt, and the board waiting to be filled, or null
+  Board ready;
+  Board toFill;
+  boolean running = true;
+
+  // constructor, filling the board toFill first unless it is null, and dealing the board
+  // ready first unless it is null
+  BoardDealer(Board toFill, Board ready, Random rand, int colorsUsed) {
+    this.rand = rand;
+    this.colorsUsed = colorsUsed;
+    this.toFill = toFill;
+    this.ready = ready;
+    this.thread = new Thread(this, "board-dealer");
+    this.thread.setDaemon(true);
+    this.thread.setPriority(Thread.MIN_PRIORITY);
+    this.thread.start();
+  }
+
+  // fills every board handed back until closed, the last one included
+  public void run() {
+    while (true) {
+      Board board;
+      synchronized (this) {
+        while (this.running && this.toFill == null) {
+          try {
+            this.wait();
+          }
+          catch (InterruptedException e) {
+            // closed while waiting
+            return;
+          }
+        }
+        if (this.toFill == null) {
+          return;
+        }
+        board = this.toFill;
+        this.toFill = null;
+      }
+      board.fill(this.rand, this.colorsUsed);
+      synchronized (this) {
+        this.ready = board;
+        this.notifyAll();
+      }
+    }
+  }
+
+  // returns the next board, waiting until it is filled, and hands the used board back to
+  // be filled after it
+  synchronized Board deal(Board used) {
+    this.awaitReady();
+    Board board = this.ready;
+    this.ready = null;
+    this.toFill = used;
+    this.notifyAll();
+    return board;
+  }
+
+  // waits until the next board is filled
+  synchronized void awaitReady() {
+    boolean interrupted = false;
+    while (this.ready == null) {
+      try {
+        this.wait();
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // stops dealing once the board handed back last is filled, and returns the board filled
+  // and not dealt yet, or null if there is none
+  Board close() {
+    synchronized (this) {
+      this.running = false;
+      this.notifyAll();
+    }
+    boolean interrupted = false;
+    while (this.thread.isAlive()) {
+      try {
+        this.thread.join();
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      return this.ready;
+    }
+  }
+}
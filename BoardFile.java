@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//represents the file format games are saved in: a header of little-endian ints followed
+//by the colors packed 21 cells to a long, 3 bits per cell in index order, and then the
+//flooded bitset exactly as Board holds it. every part is read and written through a
+//memory-mapped buffer in bulk, so even boards of a hundred million cells are saved and
+//opened without going through a stream or making an object per cell
+class BoardFile {
+  static final int MAGIC = 0x42444C46;
+  static final int VERSION = 1;
+  // the header holds the magic, the version, the size, the colors used, the moves left,
+  // the time, the flooded count, the flooded count of each palette color and the id of
+  // the board's topology
+  static final int HEADER_BYTES = 64;
+  static final int BITS_PER_CELL = 3;
+  static final int CELLS_PER_LONG = 21;
+  // the number of longs packed or unpacked at a time
+  static final int CHUNK = 8192;
+
+  // returns the number of longs the colors of a board with the given cells pack into
+  static long packedLongs(int cells) {
+    return (cells + CELLS_PER_LONG - 1L) / CELLS_PER_LONG;
+  }
+
+  // saves the game to the given file, settling it first
+  static void save(FloodItGame game, Path path) throws IOException {
+    game.settle();
+    game.refresh();
+    Board board = game.board;
+    long colorsBytes = packedLongs(board.cells) * 8;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC).putInt(VERSION).putInt(board.size).putInt(game.colorsUsed)
+          .putInt(game.movesLimit).putInt(game.time).putInt(board.floodedCount);
+      for (int c = 0; c < Board.PALETTE; c++) {
+        header.putInt(board.floodedByColor[c]);
+      }
+      header.putInt(board.topology.id);
+      header.force();
+      MappedByteBuffer colors =
+          channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, colorsBytes);
+      pack(board.colors, colors.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+      colors.force();
+      MappedByteBuffer flooded = channel.map(FileChannel.MapMode.READ_WRITE,
+          HEADER_BYTES + colorsBytes, board.flooded.length * 8L);
+      flooded.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(board.flooded);
+      flooded.force();
+    }
+  }
+
+  // opens the game saved in the given file, played with the given engine
+  static FloodItGame load(Path path, FloodEngine engine) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IllegalArgumentException("Not a saved board");
+      }
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+      header.order(ByteOrder.LITTLE_ENDIAN);
+      if (header.getInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a saved board");
+      }
+      if (header.getInt() != VERSION) {
+        throw new IllegalArgumentException("Unknown saved board version");
+      }
+      int size = header.getInt();
+      int colorsUsed = header.getInt();
+      int movesLimit = header.getInt();
+      int time = header.getInt();
+      int floodedCount = header.getInt();
+      int[] floodedByColor = new int[Board.PALETTE];
+      for (int c = 0; c < Board.PALETTE; c++) {
+        floodedByColor[c] = header.getInt();
+      }
+      Board board = new Board(size, Topology.withId(header.getInt()));
+      board.floodedCount = floodedCount;
+      System.arraycopy(floodedByColor, 0, board.floodedByColor, 0, Board.PALETTE);
+      long colorsBytes = packedLongs(board.cells) * 8;
+      if (channel.size() < HEADER_BYTES + colorsBytes + board.flooded.length * 8L) {
+        throw new IllegalArgumentException("Saved board is truncated");
+      }
+      MappedByteBuffer colors =
+          channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, colorsBytes);
+      unpack(colors.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(), board.colors);
+      MappedByteBuffer flooded = channel.map(FileChannel.MapMode.READ_ONLY,
+          HEADER_BYTES + colorsBytes, board.flooded.length * 8L);
+      flooded.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(board.flooded);
+      FloodItGame game = new FloodItGame(board, colorsUsed, movesLimit, engine);
+      game.time = time;
+      return game;
+    }
+  }
+
+  // packs the colors into the buffer, 21 to a long
+  static void pack(byte[] colors, LongBuffer out) {
+    long[] chunk = new long[CHUNK];
+    int i = 0;
+    while (i < colors.length) {
+      int n = 0;
+      for (; n < CHUNK && i < colors.length; n++) {
+        int end = Math.min(colors.length, i + CELLS_PER_LONG);
+        long packed = 0;
+        for (int shift = 0; i < end; i++, shift += BITS_PER_CELL) {
+          packed |= (long) colors[i] << shift;
+        }
+        chunk[n] = packed;
+      }
+      out.put(chunk, 0, n);
+    }
+  }
+
+  // unpacks the colors from the buffer, 21 to a long
+  static void unpack(LongBuffer in, byte[] colors) {
+    long[] chunk = new long[CHUNK];
+    int i = 0;
+    while (i < colors.length) {
+      int n = Math.min(CHUNK, in.remaining());
+      in.get(chunk, 0, n);
+      for (int k = 0; k < n; k++) {
+        long packed = chunk[k];
+        int end = Math.min(colors.length, i + CELLS_PER_LONG);
+        for (; i < end; i++, packed >>>= BITS_PER_CELL) {
+          colors[i] = (byte) (packed & 7);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+//represents where the cells of a board are drawn on screen: cell x = i / size is centered
+//at originX + cellSize * x and cell y = i % size at originY + cellSize * y, pushed half a
+//cell further down when x is odd on a staggered board
+class BoardLayout {
+  int originX;
+  int originY;
+  int cellSize;
+  // true to draw the rows of a HEX board, which are the columns on screen, staggered
+  boolean staggered;
+
+  // constructor
+  BoardLayout(int originX, int originY, int cellSize) {
+    this.originX = originX;
+    this.originY = originY;
+    this.cellSize = cellSize;
+  }
+
+  // returns the screen x coordinate of the center of the given cell
+  int screenX(int i, int size) {
+    return this.originX + this.cellSize * (i / size);
+  }
+
+  // returns the screen y coordinate of the center of the given cell
+  int screenY(int i, int size) {
+    return this.originY + this.shift(i / size) + this.cellSize * (i % size);
+  }
+
+  // returns how far down the cells of column x are pushed
+  int shift(int x) {
+    return this.staggered && (x & 1) != 0 ? this.cellSize / 2 : 0;
+  }
+
+  // returns the index of the cell under the given screen position, or -1 if the position
+  // is off the board or on the border between two cells
+  int cellAt(int px, int py, int size) {
+    int x = this.cellCoord(px, this.originX, size);
+    if (x < 0) {
+      return -1;
+    }
+    int y = this.cellCoord(py, this.originY + this.shift(x), size);
+    if (y < 0) {
+      return -1;
+    }
+    return x * size + y;
+  }
+
+  // returns the cell coordinate whose center is strictly less than half a cell away from
+  // the screen coordinate p along one axis, or -1 if there is none
+  int cellCoord(int p, int origin, int size) {
+    int c = Math.floorDiv(p - origin + this.cellSize / 2, this.cellSize);
+    if (c < 0 || c >= size || Math.abs(origin + this.cellSize * c - p) * 2 >= this.cellSize) {
+      return -1;
+    }
+    return c;
+  }
+}
@@ -0,0 +1,162 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+import javalib.worldimages.ComputedPixelImage;
+
+//represents the part of a board a Viewport shows, drawn into a single off-screen image the
+//size of the view that persists from frame to frame. the world marks the cells a tick may
+//recolor, and a repaint only looks at those, updating the board's MipMap and painting the
+//ones whose color has changed if they are in view, or the block holding them when zoomed
+//out. changes the world cannot point at, like an undo, look at every cell. the whole view
+//is only painted again when it is zoomed or panned, and then only its cells or blocks
+class BoardRaster {
+  // the color of the pixels of the view past the edge of the board
+  static final Color CLEAR = new Color(0, 0, 0, 0);
+
+  final int size;
+  final Viewport view;
+  final MipMap mip;
+  final ArrayList<Color> palette;
+  final ComputedPixelImage image;
+  // the cells marked since the last repaint, unless every cell is to be looked at
+  int[] dirty = new int[64];
+  int dirtyCount;
+  boolean all = true;
+  // the zoom, pan and stagger the image was last painted at
+  int paintedZoom = Integer.MIN_VALUE;
+  int paintedPanX;
+  int paintedPanY;
+  boolean paintedStaggered;
+
+  // constructor
+  BoardRaster(int size, Viewport view, ArrayList<Color> palette) {
+    this.size = size;
+    this.view = view;
+    this.mip = new MipMap(size);
+    this.palette = palette;
+    this.image = new ComputedPixelImage(view.width, view.height);
+  }
+
+  // marks the given cell to be looked at by the next repaint. once more than a quarter of
+  // the board is marked, the next repaint looks at every cell instead
+  void mark(int i) {
+    if (this.all) {
+      return;
+    }
+    if (this.dirtyCount == this.dirty.length) {
+      if (this.dirtyCount > this.size * this.size / 4) {
+        this.invalidate();
+        return;
+      }
+      this.dirty = Arrays.copyOf(this.dirty, this.dirtyCount * 2);
+    }
+    this.dirty[this.dirtyCount++] = i;
+  }
+
+  // marks every cell to be looked at by the next repaint
+  void invalidate() {
+    this.all = true;
+    this.dirtyCount = 0;
+  }
+
+  // brings the marked cells up to date with the palette colors colorOf gives them, and
+  // returns the number of cells or blocks painted
+  int repaint(IntUnaryOperator colorOf) {
+    Viewport view = this.view;
+    boolean moved = view.zoom != this.paintedZoom || view.panX != this.paintedPanX
+        || view.panY != this.paintedPanY || view.staggered != this.paintedStaggered;
+    int count = 0;
+    if (this.all) {
+      for (int i = 0; i < this.size * this.size; i++) {
+        if (this.mip.set(i, colorOf.applyAsInt(i)) && !moved) {
+          count += this.paintCell(i);
+        }
+      }
+    }
+    else {
+      for (int k = 0; k < this.dirtyCount; k++) {
+        int i = this.dirty[k];
+        if (this.mip.set(i, colorOf.applyAsInt(i)) && !moved) {
+          count += this.paintCell(i);
+        }
+      }
+    }
+    if (moved) {
+      count = this.paintView();
+    }
+    this.all = false;
+    this.dirtyCount = 0;
+    return count;
+  }
+
+  // paints the given cell, or the block holding it when zoomed out, if it is in view, and
+  // returns the number of cells or blocks painted
+  int paintCell(int i) {
+    int level = Math.max(0, -this.view.zoom);
+    int pixels = 1 << Math.max(0, this.view.zoom);
+    int mx = (i / this.size) >> level;
+    int my = (i % this.size) >> level;
+    int px = (mx - (this.view.panX >> level)) * pixels;
+    int py = (my - (this.view.panY >> level)) * pixels + this.view.shift(mx);
+    if (px < 0 || py + pixels <= 0 || px >= this.view.width || py >= this.view.height) {
+      return 0;
+    }
+    this.fill(px, py, pixels, this.palette.get(this.mip.color(level, mx, my)));
+    return 1;
+  }
+
+  // paints every cell or block in view, clearing the pixels past the edge of the board,
+  // and returns the number painted. a column pushed down starts with the cell above the
+  // pan, partly in view
+  int paintView() {
+    Viewport view = this.view;
+    this.paintedZoom = view.zoom;
+    this.paintedPanX = view.panX;
+    this.paintedPanY = view.panY;
+    this.paintedStaggered = view.staggered;
+    int level = Math.max(0, -view.zoom);
+    int pixels = 1 << Math.max(0, view.zoom);
+    int side = this.mip.sides[level];
+    int mx0 = view.panX >> level;
+    int my0 = view.panY >> level;
+    int count = 0;
+    for (int px = 0; px < this.view.width; px += pixels) {
+      int mx = mx0 + px / pixels;
+      int shift = view.shift(mx);
+      for (int py = shift > 0 ? shift - pixels : 0; py < this.view.height; py += pixels) {
+        int my = my0 + Math.floorDiv(py - shift, pixels);
+        if (mx < side && my >= 0 && my < side) {
+          this.fill(px, py, pixels, this.palette.get(this.mip.color(level, mx, my)));
+          count++;
+        }
+        else {
+          this.fill(px, py, pixels, CLEAR);
+        }
+      }
+    }
+    return count;
+  }
+
+  // returns the palette color shown at the given screen position, which is the color of
+  // the block under it when zoomed out, or -1 if it shows no cell
+  int colorAt(int px, int py) {
+    int i = this.view.cellAt(px, py);
+    if (i < 0) {
+      return -1;
+    }
+    int level = Math.max(0, -this.view.zoom);
+    return this.mip.color(level, (i / this.size) >> level, (i % this.size) >> level);
+  }
+
+  // paints the square of the given side from pixel (px, py), as far as it is in the image
+  void fill(int px, int py, int side, Color color) {
+    int right = Math.min(px + side, this.view.width);
+    int bottom = Math.min(py + side, this.view.height);
+    for (int x = Math.max(px, 0); x < right; x++) {
+      for (int y = Math.max(py, 0); y < bottom; y++) {
+        this.image.setPixel(x, y, color);
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.awt.Color;
+import javalib.worldimages.*;
+
+//Represents a single square of the game area
+class Cell {
+  // In logical coordinates, with the origin at the top-left corner of the screen
+  int x;
+  int y;
+  Color color;
+  boolean flooded;
+  // the four adjacent cells to this one
+  Cell left;
+  Cell top;
+  Cell right;
+  Cell bottom;
+
+  // main constructor
+  Cell(int x, int y, Color color, boolean flooded) {
+    this.x = x;
+    this.y = y;
+    this.color = color;
+    this.flooded = flooded;
+  }
+
+  // constructor
+  Cell(int x, int y, Color color, boolean flooded, Cell left, Cell top, Cell right, Cell bottom) {
+    this.x = x;
+    this.y = y;
+    this.color = color;
+    this.flooded = flooded;
+    this.left = left;
+    this.top = top;
+    this.right = right;
+    this.bottom = bottom;
+  }
+
+  // convenience constructor
+  Cell() {
+    this(0, 0, null, false, null, null, null, null);
+  }
+
+  // convenience constructor
+  Cell(int x, int y, Color color) {
+    this.color = color;
+    this.x = x;
+    this.y = y;
+  }
+
+  // draws the image of a cell
+  WorldImage image() {
+    return new RectangleImage(20, 20, OutlineMode.SOLID, this.color);
+  }
+
+  // references adjacent cells to the left
+  void setLeft(Cell left) {
+    this.left = left;
+  }
+
+  // references adjacent cells to the right
+  void setRight(Cell right) {
+    this.right = right;
+  }
+
+  // references adjacent cells to the top
+  void setTop(Cell top) {
+    this.top = top;
+  }
+
+  // references adjacent cells to the bottom
+  void setBottom(Cell bottom) {
+    this.bottom = bottom;
+  }
+
+  // floods this cell with the given color
+  void floodCell(Color c, ArrayList<Cell> workingList) {
+    this.color = c;
+    this.flooded = true;
+    ArrayList<Cell> temp = new ArrayList<Cell>();
+    temp.add(this.top);
+    temp.add(this.left);
+    temp.add(this.right);
+    temp.add(this.bottom);
+    for (Cell neighbor : temp) {
+      if (neighbor != null) {
+        neighbor.needsFlood(c, workingList);
+      }
+    }
+  }
+
+  // checks if this square is both flooded and of the supplied color, used to
+  // check for a winstate
+  boolean check(Color c) {
+    return this.color.equals(c) && this.flooded;
+  }
+
+  // adds this cell to the working list if it is flooded XOR the same color
+  // provided
+  void needsFlood(Color c, ArrayList<Cell> workingList) {
+    if ((this.color.equals(c) ^ this.flooded) && !workingList.contains(this)) {
+      workingList.add(this);
+    }
+  }
+
+  // returns true if the posn is in bounds
+  boolean inBounds(Posn pos) {
+    return Math.abs((80 + 20 * this.x) - pos.x) < 10 && Math.abs((80 + 20 * this.y) - pos.y) < 10;
+  }
+}
@@ -0,0 +1,35 @@
+//represents a way of applying whole moves to a board, as an alternative to the tick by
+//tick wave FloodItWorld animates. every engine leaves the board in the same state after
+//the same moves
+interface FloodEngine {
+  // returns true if the engine can flood boards of the given topology
+  boolean supports(Topology topology);
+
+  // rebuilds the engine's state from the given board and floods the region of its
+  // top-left cell. the board's topology must be supported
+  void load(Board board);
+
+  // floods the region of the top-left cell with the palette color c until nothing more
+  // can be flooded
+  void move(int c);
+
+  // returns the palette color of the flooded region
+  int color();
+
+  // returns the palette color of the given cell
+  int colorAt(int i);
+
+  // returns the number of flooded cells
+  int floodedCount();
+
+  // writes the engine's state back into the cells of the board it was loaded with
+  void store();
+
+  // adds the cells every later move newly floods to the given journal, or to none when
+  // it is null
+  void journal(MoveJournal journal);
+
+  // takes back the last move, from the flood color prev to c, which newly flooded the
+  // first count of the given cells. the cells get back the color c on the board too
+  void undo(int prev, int c, int[] cells, int count);
+}
@@ -1,324 +1,19 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import tester.Tester;
 import javalib.impworld.*;
 import java.awt.Color;
 import javalib.worldimages.*;
-
-//Represents a single square of the game area
-class Cell {
-  // In logical coordinates, with the origin at the top-left corner of the screen
-  int x;
-  int y;
-  Color color;
-  boolean flooded;
-  // the four adjacent cells to this one
-  Cell left;
-  Cell top;
-  Cell right;
-  Cell bottom;
-
-  // main constructor
-  Cell(int x, int y, Color color, boolean flooded) {
-    this.x = x;
-    this.y = y;
-    this.color = color;
-    this.flooded = flooded;
-  }
-
-  // constructor
-  Cell(int x, int y, Color color, boolean flooded, Cell left, Cell top, Cell right, Cell bottom) {
-    this.x = x;
-    this.y = y;
-    this.color = color;
-    this.flooded = flooded;
-    this.left = left;
-    this.top = top;
-    this.right = right;
-    this.bottom = bottom;
-  }
-
-  // convenience constructor
-  Cell() {
-    this(0, 0, null, false, null, null, null, null);
-  }
-
-  // convenience constructor
-  Cell(int x, int y, Color color) {
-    this.color = color;
-    this.x = x;
-    this.y = y;
-  }
-
-  // draws the image of a cell
-  WorldImage image() {
-    return new RectangleImage(20, 20, OutlineMode.SOLID, this.color);
-  }
-
-  // references adjacent cells to the left
-  void setLeft(Cell left) {
-    this.left = left;
-  }
-
-  // references adjacent cells to the right
-  void setRight(Cell right) {
-    this.right = right;
-  }
-
-  // references adjacent cells to the top
-  void setTop(Cell top) {
-    this.top = top;
-  }
-
-  // references adjacent cells to the bottom
-  void setBottom(Cell bottom) {
-    this.bottom = bottom;
-  }
-
-  // floods this cell with the given color
-  void floodCell(Color c, ArrayList<Cell> workingList) {
-    this.color = c;
-    this.flooded = true;
-    ArrayList<Cell> temp = new ArrayList<Cell>();
-    temp.add(this.top);
-    temp.add(this.left);
-    temp.add(this.right);
-    temp.add(this.bottom);
-    for (Cell neighbor : temp) {
-      if (neighbor != null) {
-        neighbor.needsFlood(c, workingList);
-      }
-    }
-  }
-
-  // checks if this square is both flooded and of the supplied color, used to
-  // check for a winstate
-  boolean check(Color c) {
-    return this.color.equals(c) && this.flooded;
-  }
-
-  // adds this cell to the working list if it is flooded XOR the same color
-  // provided
-  void needsFlood(Color c, ArrayList<Cell> workingList) {
-    if ((this.color.equals(c) ^ this.flooded) && !workingList.contains(this)) {
-      workingList.add(this);
-    }
-  }
-
-  // returns true if the posn is in bounds
-  boolean inBounds(Posn pos) {
-    return Math.abs((80 + 20 * this.x) - pos.x) < 10 && Math.abs((80 + 20 * this.y) - pos.y) < 10;
-  }
-}
-
-//represents FloodItWorld
-class FloodItWorld extends World {
-  // All the cells of the game
-  ArrayList<Cell> grid;
-  int time = 0;
-  int movesLimit;
-  int colorsUsed;
-  Random rand;
-  Color floodColor;
-  ArrayList<Cell> floodNext = new ArrayList<Cell>();
-
-  boolean lost;
-  boolean won;
-
-  public int gridSize;
-  public static int WHEIGHT = 900;
-  public static int WWIDTH = 600;
-
-  // array list of the colors to be used in the game
-  ArrayList<Color> randColor = new ArrayList<Color>(Arrays.asList(Color.RED, Color.GREEN,
-      Color.BLUE, Color.YELLOW, Color.GRAY, Color.CYAN, Color.ORANGE, Color.PINK));
-
-  // constructor
-  FloodItWorld(int colorsUsed, int dimens) {
-    if (colorsUsed > 8) {
-      throw new IllegalArgumentException("Number of colors exceeds 8");
-    }
-    this.colorsUsed = colorsUsed;
-    gridSize = dimens;
-    this.grid = new ArrayList<Cell>(gridSize);
-    this.rand = new Random();
-    gridGen();
-    floodNext.add(grid.get(0));
-    this.movesLimit = this.maxMovesGen();
-    this.lost = false;
-    this.won = false;
-  }
-
-  // constructor
-  FloodItWorld(int colorsUsed, int dimens, Random rand) {
-    if (colorsUsed > 8) {
-      throw new IllegalArgumentException("Number of colors exceeds 8");
-    }
-    this.colorsUsed = colorsUsed;
-    gridSize = dimens;
-    this.grid = new ArrayList<Cell>(gridSize);
-    this.rand = rand;
-    gridGen();
-    floodNext.add(grid.get(0));
-    this.movesLimit = this.maxMovesGen();
-    this.lost = false;
-    this.won = false;
-  }
-
-  // starts the flooding process when the mouse is clicked
-  public void onMouseClicked(Posn pos) {
-    for (Cell c : grid) {
-      if (c.inBounds(pos)) {
-        this.floodColor = c.color;
-        this.floodNext.add(this.grid.get(0));
-        this.movesLimit--;
-      }
-    }
-  }
-
-  // generates the number of max moves
-  int maxMovesGen() {
-    return this.gridSize + this.colorsUsed + 3;
-  }
-
-  // takes in a key and resets the scene if the key is R
-  public void onKeyEvent(String key) {
-    if (key.equals("r")) {
-      this.reset();
-    }
-  }
-
-  // resets the scene
-  public void reset() {
-    this.grid = new ArrayList<Cell>();
-    gridGen();
-    floodNext = new ArrayList<Cell>();
-    floodNext.add(grid.get(0));
-    this.movesLimit = this.maxMovesGen();
-    this.lost = false;
-    this.won = false;
-    this.time = 0;
-  }
-
-  // updates the world on tick
-  public void onTick() {
-    time++;
-    this.flood();
-    this.lost = this.checkLoss();
-    this.won = this.checkWin();
-  }
-
-  // checks to see if the game has been lost
-  public boolean checkLoss() {
-    return this.movesLimit <= 0;
-  }
-
-  // checks to see if the game has been won
-  public boolean checkWin() {
-    boolean completeChecker = true;
-    for (Cell c : grid) {
-      completeChecker = completeChecker && c.check(floodColor);
-
-    }
-    return completeChecker;
-  }
-
-  // floods every cell in floodnext and then updates floodnext with the cells that
-  // need to be flooded on the next tick
-  public void flood() {
-    ArrayList<Cell> workingList = new ArrayList<Cell>();
-    for (Cell c : floodNext) {
-      c.floodCell(floodColor, workingList);
-    }
-    this.floodNext = new ArrayList<Cell>(workingList);
-  }
-
-  // creates a scene
-  public WorldScene makeScene() {
-    if (this.won) {
-      return this.endScene("You Win :)");
-    }
-    else if (this.lost) {
-      return this.endScene("You Lose :(");
-    }
-    WorldScene gameScene = new WorldScene(900, 600);
-    
-    //enhancing graphics with a background image
-    gameScene.placeImageXY(new FromFileImage("src/Northeastern_Huskies_logo.png"), 250, 300);
-
-    // this will put each cell on the grid
-    for (Cell a : grid) {
-      gameScene.placeImageXY(a.image(), 80 + 20 * a.x, 80 + 20 * a.y);
-    }
-
-    // places "FLOOD IT!"
-    gameScene.placeImageXY(new TextImage("FLOOD IT!", 50, FontStyle.BOLD, 
-        new Color(135, 206, 235)), WWIDTH - 400, 40);
-
-    // tells the user how many moves are left
-    gameScene.placeImageXY(new TextImage("Moves Remaining: " + (this.movesLimit), 
-        25, FontStyle.BOLD, new Color(135, 206, 235)), WWIDTH - 350, 475);
-
-    // time displayed on screen
-    gameScene.placeImageXY(new TextImage("Time Spent: " + time / 10 + " seconds", 25,
-        FontStyle.BOLD, new Color(135, 206, 235)), WWIDTH - 350, 450);
-
-    return gameScene;
-  }
-
-  // returns the game at the end scene with the supplied message
-  public WorldScene endScene(String message) {
-    WorldScene gameScene = new WorldScene(900, 600);
-    gameScene.placeImageXY(new TextImage(message, 50, FontStyle.BOLD, new Color(0, 0, 0)),
-        WWIDTH / 3, 150);
-    gameScene.placeImageXY(
-        new TextImage("Press r to play again", 24, FontStyle.BOLD, new Color(0, 0, 0)), WWIDTH / 3,
-        200);
-
-    return gameScene;
-  }
-
-  // generates a random grid for the game
-  void gridGen() {
-    if (grid != null) {
-      for (int r = 0; r < this.gridSize; r++) {
-        for (int c = 0; c < this.gridSize; c++) {
-          boolean isCorner = (r == 0 && c == 0);
-          Cell cell = new Cell(r, c, this.randColor.get(this.rand.nextInt(this.colorsUsed)),
-              isCorner);
-          grid.add(cell);
-        }
-      }
-    }
-    for (Cell cell : grid) {
-      int cellIndex = grid.indexOf(cell);
-      int row = cellIndex / this.gridSize;
-      int col = cellIndex % this.gridSize;
-
-      // connects to left neighbor if not leftmost cell in row
-      if (col > 0) {
-        cell.setLeft(grid.get(cellIndex - 1));
-      }
-
-      // connects to right neighbor if not rightmost cell in row
-      if (col < this.gridSize - 1) {
-        cell.setRight(grid.get(cellIndex + 1));
-      }
-
-      // connects to top neighbor if not top row
-      if (row > 0) {
-        cell.setTop(grid.get(cellIndex - this.gridSize));
-      }
-
-      // connects to bottom neighbor if not bottom row
-      if (row < this.gridSize - 1) {
-        cell.setBottom(grid.get(cellIndex + this.gridSize));
-      }
-    }
-    this.floodColor = this.grid.get(0).color;// field of field
-  }
-}
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 //represents tests and examples for FloodIt
 class ExamplesFloodIt {
@@ -513,7 +208,7 @@ class ExamplesFloodIt {
             new Color(135, 206, 235)), 600 - 350, 450);
     t.checkExpect(this.world2.makeScene(), temp);
     temp = new WorldScene(900, 600);
-    world2.lost = true;
+    world2.game.lost = true;
     temp.placeImageXY(new TextImage("You Lose :(", 50, FontStyle.BOLD, 
         new Color(0, 0, 0)), 600 / 3, 150);
     temp.placeImageXY(
@@ -521,7 +216,7 @@ class ExamplesFloodIt {
             new Color(0, 0, 0)), 600 / 3, 200);
     t.checkExpect(this.world2.makeScene(), temp);
     temp = new WorldScene(900, 600);
-    world2.won = true;
+    world2.game.won = true;
     temp.placeImageXY(new TextImage("You Win :)", 50, FontStyle.BOLD, 
         new Color(0, 0, 0)), 600 / 3, 150);
     temp.placeImageXY(
@@ -531,16 +226,1034 @@ class ExamplesFloodIt {
 
   }
 
+  // tests that makeScene reuses its images until what they show changes
+  void testRenderCache(Tester t) {
+    this.initFlood();
+    t.checkExpect(FloodItWorld.background() == FloodItWorld.background(), true);
+    t.checkExpect(this.world2.cellImages.get(1), this.g.image());
+    WorldImage moves = this.world2.movesImage();
+    WorldImage time = this.world2.timeImage();
+    this.world2.makeScene();
+    t.checkExpect(this.world2.movesImage() == moves, true);
+    this.world2.onMouseClicked(new Posn(100, 100));
+    t.checkExpect(this.world2.movesImage() == moves, false);
+    t.checkExpect(this.world2.movesImage(), new TextImage("Moves Remaining: " + 6, 25,
+        FontStyle.BOLD, new Color(135, 206, 235)));
+    for (int i = 0; i < 9; i++) {
+      this.world2.onTick();
+    }
+    t.checkExpect(this.world2.timeImage() == time, true);
+    this.world2.onTick();
+    t.checkExpect(this.world2.timeImage(), new TextImage("Time Spent: " + 1 + " seconds", 25,
+        FontStyle.BOLD, new Color(135, 206, 235)));
+  }
+
+  // tests the FloodItBench harness
+  void testBench(Tester t) {
+    BenchResult result = new BenchResult("gridGen", 14, 3, new double[] { 1, 2, 3 }, 8);
+    t.checkInexact(result.score(), 2.0, 0.001);
+    t.checkInexact(result.error(), 31.60 / Math.sqrt(3), 0.001);
+    t.checkExpect(result.toJson().contains("\"params\": { \"size\": \"14\""), true);
+    t.checkExpect(new FullGameCase().accepts(FullGameCase.LIMIT + 1), false);
+    long millis = FloodItBench.ITERATION_MILLIS;
+    FloodItBench.ITERATION_MILLIS = 1;
+    for (BenchCase bench : FloodItBench.cases()) {
+      BenchResult r = FloodItBench.measure(bench, 14, 3);
+      t.checkExpect(r.scores.length, FloodItBench.ITERATIONS);
+      t.checkExpect(r.score() > 0, true);
+    }
+    FloodItBench.ITERATION_MILLIS = millis;
+    FullGameCase game = new FullGameCase();
+    game.setup(14, 3);
+    game.prepare();
+    game.run();
+    t.checkExpect(game.game.won, true);
+    t.checkExpect(game.game.board.allFlooded(game.game.floodColor), true);
+  }
+
+  // tests Metrics and Histogram
+  void testMetrics(Tester t) throws IOException {
+    this.initFlood();
+    Histogram h = new Histogram();
+    t.checkExpect(h.percentile(0.5), 0L);
+    h.record(0);
+    h.record(1);
+    h.record(5);
+    h.record(100);
+    t.checkExpect(h.count(), 4L);
+    t.checkExpect(h.max(), 100L);
+    t.checkInexact(h.mean(), 26.5, 0.001);
+    t.checkExpect(h.percentile(0.25), 0L);
+    t.checkExpect(h.percentile(0.5), 1L);
+    t.checkExpect(h.percentile(0.75), 7L);
+    t.checkExpect(h.percentile(1), 100L);
+    Metrics.reset();
+    this.world2.onTick();
+    this.world2.makeScene();
+    t.checkExpect(Metrics.snapshot().frontier.count(), 0L);
+    Metrics.enabled = true;
+    this.world2.onTick();
+    this.world2.onMouseClicked(new Posn(100, 100));
+    this.world2.onTick();
+    this.world2.makeScene();
+    Metrics.enabled = false;
+    MetricsSnapshot snapshot = Metrics.snapshot();
+    this.world2.onTick();
+    // the first tick floods what the board started with waiting in its frontier, the click
+    // floods its move at once, and the second tick has nothing left to flood
+    t.checkExpect(snapshot.floodNanos.count(), 2L);
+    t.checkExpect(snapshot.floodNanos.max() > 0, true);
+    t.checkExpect(snapshot.cellsFlooded.max(), 2L);
+    t.checkExpect(snapshot.moveBytes.count(), 1L);
+    t.checkExpect(snapshot.revealNanos.count(), 2L);
+    t.checkExpect(snapshot.winNanos.count(), 2L);
+    t.checkExpect(snapshot.frontier.count(), 2L);
+    t.checkExpect(snapshot.frameNanos.count(), 1L);
+    t.checkExpect(snapshot.frameBytes.count(), 1L);
+    t.checkExpect(Metrics.snapshot().floodNanos.count(), 2L);
+    Metrics.reset();
+
+    FloodItGame engineGame = new FloodItGame(3, 12, new Random(6), new RegionEngine());
+    Metrics.enabled = true;
+    engineGame.applyMove((engineGame.floodColor + 1) % 3);
+    Metrics.enabled = false;
+    snapshot = Metrics.snapshot();
+    t.checkExpect(snapshot.floodNanos.count(), 1L);
+    t.checkExpect(snapshot.floodNanos.max() > 0, true);
+    t.checkExpect(snapshot.cellsFlooded.max(), (long) engineGame.floodedCount()
+        - new FloodItGame(3, 12, new Random(6), new RegionEngine()).floodedCount());
+    Metrics.reset();
+
+    // a JFR recording gets its events while the histograms are off
+    Path jfr = Files.createTempFile("floodit", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("floodit.Move");
+      recording.enable("floodit.Tick");
+      recording.start();
+      engineGame.applyMove((engineGame.floodColor + 1) % 3);
+      engineGame.tick();
+      recording.stop();
+      recording.dump(jfr);
+      int events = 0;
+      for (RecordedEvent event : RecordingFile.readAllEvents(jfr)) {
+        if (event.getEventType().getName().startsWith("floodit.")) {
+          events++;
+        }
+      }
+      t.checkExpect(events, 2);
+    }
+    finally {
+      Files.delete(jfr);
+    }
+    t.checkExpect(Metrics.snapshot().floodNanos.count(), 0L);
+  }
+
   // tests onMouseClicked
   void testOnMouseClicked(Tester t) {
     this.initFlood();
     world2.onMouseClicked(new Posn(80, 80));
-    t.checkExpect(world2.floodColor, Color.GREEN);
+    t.checkExpect(world2.floodColor(), Color.GREEN);
+    t.checkExpect(world2.game.movesLimit, 7);
     world2.onMouseClicked(new Posn(80, 800));
-    t.checkExpect(world2.floodColor, Color.GREEN);
+    t.checkExpect(world2.floodColor(), Color.GREEN);
+    world2.onMouseClicked(new Posn(90, 100));
+    t.checkExpect(world2.game.movesLimit, 7);
     world2.onMouseClicked(new Posn(100, 100));
-    t.checkExpect(world2.floodColor, Color.RED);
-    t.checkExpect(world2.movesLimit, 5);
+    t.checkExpect(world2.floodColor(), Color.RED);
+    t.checkExpect(world2.game.movesLimit, 6);
+    world2.onMouseClicked(new Posn(105, 95));
+    t.checkExpect(world2.game.movesLimit, 6);
+  }
+
+  // tests applyMove against the wave and replaying it
+  void testApplyMove(Tester t) {
+    FloodItGame instant = new FloodItGame(4, 8, new Random(3), null);
+    FloodItGame wave = new FloodItGame(4, 8, new Random(3), null);
+    wave.settle();
+    boolean layersMatch = true;
+    boolean boardsMatch = true;
+    for (int m = 0; m < 12; m++) {
+      int c = (m * 3 + 1) % 4;
+      boolean moved = instant.applyMove(c);
+      t.checkExpect(wave.move(c), moved);
+      WaveReplay replay = instant.replay;
+      for (int d = 0; moved && d < replay.layers; d++) {
+        for (int k = replay.layerStart[d]; k < replay.layerStart[d + 1]; k++) {
+          layersMatch = layersMatch && wave.floodNext.contains(replay.order[k])
+              && replay.distance(k) == d;
+        }
+        wave.flood();
+      }
+      wave.settle();
+      boardsMatch = boardsMatch && Arrays.equals(instant.board.colors, wave.board.colors)
+          && Arrays.equals(instant.board.flooded, wave.board.flooded)
+          && instant.board.floodedCount == wave.board.floodedCount;
+      t.checkExpect(instant.won, wave.checkWin());
+      t.checkExpect(instant.movesLimit, wave.movesLimit);
+      instant.replay.finish();
+    }
+    t.checkExpect(layersMatch, true);
+    t.checkExpect(boardsMatch, true);
+
+    FloodItGame game = new FloodItGame(3, 6, new Random(9), null);
+    int c = (game.floodColor + 1) % 3;
+    int before = game.board.color(0);
+    t.checkExpect(game.applyMove(c), true);
+    t.checkExpect(game.board.color(0), c);
+    t.checkExpect(game.replay.playing(), true);
+    t.checkExpect(game.replay.shownColor(game.board, 0), before);
+    game.tick();
+    t.checkExpect(game.replay.shown, 1);
+    t.checkExpect(game.replay.shownColor(game.board, 0), c);
+    t.checkExpect(game.applyMove(c), false);
+    t.checkExpect(game.replay.playing(), false);
+    game.reset();
+    t.checkExpect(game.replay.layers, 0);
+
+    FloodItWorld world = new FloodItWorld(3, 6, new Random(9));
+    world.onMouseClicked(new Posn(80, 80));
+    t.checkExpect(world.game.floodNext.size(), 0);
+    t.checkExpect(world.game.movesLimit, world.maxMovesGen());
+    world.onMouseClicked(new Posn(world.layout.screenX(35, 6), world.layout.screenY(35, 6)));
+    world.onTick();
+    world.onMouseClicked(new Posn(80, 100));
+    world.onMouseClicked(new Posn(world.layout.screenX(35, 6), world.layout.screenY(35, 6)));
+    world.fastForward();
+    boolean viewMatches = true;
+    for (int i = 0; i < world.game.board.cells; i++) {
+      viewMatches = viewMatches
+          && world.grid.get(i).color.equals(world.randColor.get(world.game.board.color(i)))
+          && world.grid.get(i).flooded == world.game.board.isFlooded(i);
+    }
+    t.checkExpect(viewMatches, true);
+  }
+
+  // tests undoing and redoing moves, with and without an engine
+  void testUndoRedo(Tester t) {
+    FloodEngine[] engines = { null, new RegionEngine(), new BitboardEngine(),
+        new WaveEngine(), new TileFloodEngine(new ForkJoinPool(2), 5) };
+    for (FloodEngine engine : engines) {
+      FloodItGame game = new FloodItGame(4, 12, new Random(8), engine);
+      game.settle();
+      ArrayList<Board> boards = new ArrayList<Board>();
+      game.refresh();
+      boards.add(game.board.copy());
+      for (int m = 0; m < 8; m++) {
+        game.applyMove((game.floodColor + 1 + m % 3) % 4);
+        game.refresh();
+        boards.add(game.board.copy());
+      }
+      // an engine's board is only brought up to date when it is read
+      boolean restored = true;
+      for (int m = 7; m >= 0; m--) {
+        restored = restored && game.undo() && game.floodColor == boards.get(m).color(0)
+            && game.floodedCount() == boards.get(m).floodedCount;
+        game.refresh();
+        restored = restored && this.sameBoard(game.board, boards.get(m));
+        if (engine instanceof RegionEngine) {
+          // the border is taken back too, so every move gains what it would after a load
+          RegionEngine loaded = new RegionEngine();
+          loaded.load(game.board.copy());
+          for (int c = 0; c < 4; c++) {
+            restored = restored && ((RegionEngine) engine).gain(c) == loaded.gain(c);
+          }
+        }
+      }
+      t.checkExpect(restored, true);
+      t.checkExpect(game.undo(), false);
+      t.checkExpect(game.movesLimit, game.maxMovesGen());
+      for (int m = 1; m <= 8; m++) {
+        restored = restored && game.redo();
+        game.refresh();
+        restored = restored && this.sameBoard(game.board, boards.get(m));
+      }
+      t.checkExpect(restored, true);
+      t.checkExpect(game.redo(), false);
+      game.undo();
+      game.undo();
+      game.applyMove((game.floodColor + 1) % 4);
+      t.checkExpect(game.redo(), false);
+      t.checkExpect(game.journal.moves, 7);
+    }
+
+    FloodItGame big = new FloodItGame(3, 256, new Random(1), null);
+    big.settle();
+    while (!big.won) {
+      big.applyMove((big.floodColor + 1) % 3);
+    }
+    // far below the cells * count bytes of a board snapshot per move
+    t.checkExpect(big.journal.bytes() < big.board.cells * 2, true);
+    int moves = big.journal.count;
+    int undone = 0;
+    while (big.undo()) {
+      undone++;
+    }
+    t.checkExpect(undone, moves);
+    FloodItGame fresh = new FloodItGame(3, 256, new Random(1), null);
+    fresh.settle();
+    t.checkExpect(this.sameBoard(big.board, fresh.board), true);
+
+    FloodItWorld world = new FloodItWorld(3, 6, new Random(9));
+    world.onMouseClicked(new Posn(world.layout.screenX(35, 6), world.layout.screenY(35, 6)));
+    world.onKeyEvent("u");
+    t.checkExpect(world.game.movesLimit, world.maxMovesGen());
+    t.checkExpect(world.grid.get(0).color, world.floodColor());
+    world.onKeyEvent("y");
+    t.checkExpect(world.game.movesLimit, world.maxMovesGen() - 1);
+    t.checkExpect(world.grid.get(0).color, world.floodColor());
+  }
+
+  // tests writing game records and replaying them to their outcome
+  void testGameRecord(Tester t) {
+    VarintBuffer buffer = new VarintBuffer();
+    buffer.writeSigned(-1);
+    buffer.writeSigned(Long.MIN_VALUE);
+    buffer.writeSigned(Long.MAX_VALUE);
+    t.checkExpect(buffer.readSigned(), -1L);
+    t.checkExpect(buffer.readSigned(), Long.MIN_VALUE);
+    t.checkExpect(buffer.readSigned(), Long.MAX_VALUE);
+    t.checkExpect(buffer.atEnd(), true);
+
+    FloodItGame game = new FloodItGame(4, 10, -77L, null);
+    game.applyMove(2);
+    game.reset();
+    t.checkExpect(game.record.round, 1);
+    t.checkExpect(game.record.eventCount, 0);
+    for (int m = 0; m < 6; m++) {
+      game.tick();
+      game.applyMove((game.floodColor + 1 + m % 2) % 4);
+    }
+    game.undo();
+    game.undo();
+    game.redo();
+    game.undo();
+    game.redo();
+    game.redo();
+    game.move((game.floodColor + 1) % 4);
+    game.tick();
+    game.record.finish(game);
+    t.checkExpect(game.record.eventCount, 13);
+    GameRecord other = new FloodItGame(3, 6, 5L, new RegionEngine()).record;
+    other.add(1, 0);
+    other.finish(GameReplayer.replay(other, null));
+    VarintBuffer archive = new VarintBuffer();
+    game.record.write(archive);
+    other.write(archive);
+    t.checkExpect(archive.length <= 2 * 24 + 2 * 14, true);
+    ArrayList<GameRecord> records = GameRecord.readAll(archive.toByteArray());
+    t.checkExpect(records.size(), 2);
+    GameRecord read = records.get(0);
+    t.checkExpect(read.seed, -77L);
+    t.checkExpect(read.round, 1);
+    t.checkExpect(read.checksum, game.record.checksum);
+    t.checkExpect(GameReplayer.verify(read, null), true);
+    t.checkExpect(GameReplayer.verify(read, new RegionEngine()), true);
+    t.checkExpect(GameReplayer.verify(read, new BitboardEngine()), true);
+    t.checkExpect(GameReplayer.verify(records.get(1), new TileFloodEngine()), true);
+    FloodItGame hex = new FloodItGame(3, 8, 9L, new RegionEngine(), Topology.HEX);
+    hex.reset();
+    for (int m = 0; m < 5; m++) {
+      hex.applyMove((hex.floodColor + 1 + m % 2) % 3);
+    }
+    hex.record.finish(hex);
+    GameRecord hexRead = GameRecord.readAll(hex.record.toByteArray()).get(0);
+    t.checkExpect(hexRead.topology, Topology.HEX);
+    t.checkExpect(GameReplayer.replay(hexRead, null).board.topology, Topology.HEX);
+    t.checkExpect(GameReplayer.verify(hexRead, null), true);
+    t.checkExpect(GameReplayer.verify(hexRead, new RegionEngine()), true);
+    t.checkExpect(GameReplayer.replay(read, null).won, game.won);
+    read.events.bytes[1] = (byte) ((read.events.bytes[1] + 1) % 4);
+    t.checkExpect(GameReplayer.verify(read, null), false);
+    t.checkExpect(new FloodItWorld(3, 6, 4L).game.record.seed, 4L);
+    byte[] future = game.record.toByteArray();
+    future[2] = GameRecord.VERSION + 1;
+    boolean rejected = false;
+    try {
+      GameRecord.readAll(future);
+    }
+    catch (IllegalArgumentException e) {
+      rejected = true;
+    }
+    t.checkExpect(rejected, true);
+
+    // every game is archived with the outcome it reached once it is reset
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    FloodItGame archived = new FloodItGame(3, 8, 21L, new RegionEngine());
+    archived.archive = new RecordArchive(stream);
+    while (!archived.won && !archived.lost) {
+      archived.applyMove((archived.floodColor + 1) % 3);
+    }
+    archived.undo();
+    archived.reset();
+    archived.applyMove((archived.floodColor + 1) % 3);
+    archived.reset();
+    records = GameRecord.readAll(stream.toByteArray());
+    t.checkExpect(records.size(), 2);
+    t.checkExpect(records.get(0).round, 0);
+    t.checkExpect(records.get(0).won, false);
+    t.checkExpect(GameReplayer.verify(records.get(0), null), true);
+    t.checkExpect(records.get(1).round, 1);
+    t.checkExpect(GameReplayer.verify(records.get(1), new RegionEngine()), true);
+  }
+
+  // tests saving games to a file and opening them again
+  void testBoardFile(Tester t) throws IOException {
+    Path path = Files.createTempFile("floodit", ".board");
+    try {
+      FloodItGame game = new FloodItGame(5, 23, new Random(6), null);
+      for (int m = 0; m < 4; m++) {
+        game.tick();
+        game.applyMove((game.floodColor + 1 + m) % 5);
+      }
+      BoardFile.save(game, path);
+      t.checkExpect(Files.size(path),
+          BoardFile.HEADER_BYTES + 8 * (BoardFile.packedLongs(23 * 23) + 9));
+      FloodItGame loaded = BoardFile.load(path, null);
+      t.checkExpect(this.sameBoard(loaded.board, game.board), true);
+      t.checkExpect(loaded.movesLimit, game.movesLimit);
+      t.checkExpect(loaded.time, 4);
+      t.checkExpect(loaded.colorsUsed, 5);
+      t.checkExpect(loaded.floodColor, game.floodColor);
+      loaded.applyMove((loaded.floodColor + 1) % 5);
+      game.applyMove((game.floodColor + 1) % 5);
+      t.checkExpect(this.sameBoard(loaded.board, game.board), true);
+
+      FloodItGame won = new FloodItGame(2, 3, new Random(1), new BitboardEngine());
+      while (!won.won) {
+        won.applyMove(1 - won.floodColor);
+      }
+      BoardFile.save(won, path);
+      FloodItGame reopened = BoardFile.load(path, new RegionEngine());
+      t.checkExpect(reopened.won, true);
+      t.checkExpect(this.sameBoard(reopened.board, won.board), true);
+      t.checkExpect(new FloodItWorld(reopened).grid.get(8).flooded, true);
+
+      byte[] bytes = Files.readAllBytes(path);
+      bytes[4] = BoardFile.VERSION + 1;
+      Files.write(path, bytes);
+      boolean rejected = false;
+      try {
+        BoardFile.load(path, null);
+      }
+      catch (IllegalArgumentException e) {
+        rejected = true;
+      }
+      t.checkExpect(rejected, true);
+    }
+    finally {
+      Files.delete(path);
+    }
+  }
+
+  // tests the neighbors of every topology, and that every engine that supports one floods
+  // its boards alike, the CSR walk of GRID4 included
+  void testTopology(Tester t) throws IOException {
+    Adjacency grid4 = Topology.GRID4.adjacency(5);
+    Board square = new Board(5);
+    boolean fastPath = grid4.offsets[25] == 2 * 2 * 5 * 4;
+    for (int i = 0; i < 25; i++) {
+      int k = grid4.offsets[i];
+      for (int j : new int[] { square.top(i), square.left(i), square.right(i),
+          square.bottom(i) }) {
+        if (j >= 0) {
+          fastPath = fastPath && grid4.neighbors[k++] == j;
+        }
+      }
+      fastPath = fastPath && k == grid4.offsets[i + 1];
+    }
+    t.checkExpect(fastPath, true);
+    int[] out = new int[8];
+    t.checkExpect(Topology.GRID8.neighbors(5, 0, out), 3);
+    t.checkExpect(Topology.GRID8.neighbors(5, 12, out), 8);
+    t.checkExpect(out[0], 6);
+    t.checkExpect(out[7], 18);
+    t.checkExpect(Topology.HEX.neighbors(5, 12, out), 6);
+    t.checkExpect(Arrays.copyOf(out, 6), new int[] { 6, 7, 11, 13, 16, 17 });
+    t.checkExpect(Topology.HEX.neighbors(5, 7, out), 6);
+    t.checkExpect(Arrays.copyOf(out, 6), new int[] { 2, 3, 6, 8, 12, 13 });
+    t.checkExpect(Topology.HEX.neighbors(5, 5, out), 5);
+    t.checkExpect(Topology.TORUS.neighbors(5, 0, out), 4);
+    t.checkExpect(Arrays.copyOf(out, 4), new int[] { 20, 4, 1, 5 });
+    t.checkExpect(Topology.named("hex"), Topology.HEX);
+    t.checkExpect(Topology.withId(3), Topology.TORUS);
+    t.checkExpect(new Board(5).adjacency, null);
+
+    boolean alike = true;
+    Topology[] topologies = { Topology.GRID4, Topology.GRID8, Topology.HEX, Topology.TORUS };
+    for (Topology topology : topologies) {
+      for (int seed = 0; seed < 4; seed++) {
+        int size = 6 + seed * 3;
+        Board fast = new Board(size, topology);
+        fast.fill(new Random(seed), 4);
+        Board csr = new Board(size, topology, topology.adjacency(size));
+        csr.fill(new Random(seed), 4);
+        FloodItGame replayed = new FloodItGame(4, size, new Random(seed), null, topology);
+        FloodItGame waved = new FloodItGame(fast.copy(), 4, 100, new WaveEngine());
+        FloodItGame csrWaved = new FloodItGame(csr, 4, 100, new WaveEngine());
+        FloodItGame regions = new FloodItGame(fast.copy(), 4, 100, new RegionEngine());
+        for (int m = 0; m < 8 && !regions.won; m++) {
+          int c = (regions.floodColor + 1 + m % 3) % 4;
+          replayed.applyMove(c);
+          waved.applyMove(c);
+          csrWaved.applyMove(c);
+          regions.applyMove(c);
+          regions.refresh();
+          alike = alike && this.sameBoard(replayed.board, regions.board)
+              && this.sameBoard(waved.board, regions.board)
+              && this.sameBoard(csrWaved.board, regions.board);
+        }
+      }
+    }
+    t.checkExpect(alike, true);
+
+    FloodItGame torus = new FloodItGame(2, 4, new Random(5), null, Topology.TORUS);
+    t.checkExpect(torus.board.topology, Topology.TORUS);
+    torus.reset();
+    t.checkExpect(torus.board.topology, Topology.TORUS);
+    t.checkExpect(new BitboardEngine().supports(Topology.HEX), false);
+    t.checkExpect(new TileFloodEngine().supports(Topology.TORUS), false);
+    t.checkExpect(new RegionEngine().supports(Topology.HEX), true);
+    int unsupported = 0;
+    FloodEngine[] gridOnly = { new BitboardEngine(), new TileFloodEngine() };
+    for (FloodEngine engine : gridOnly) {
+      try {
+        new FloodItGame(2, 4, new Random(5), engine, Topology.HEX);
+      }
+      catch (IllegalArgumentException e) {
+        unsupported++;
+      }
+      try {
+        new FloodItGame(new Board(4, Topology.GRID8), 2, 10, engine);
+      }
+      catch (IllegalArgumentException e) {
+        unsupported++;
+      }
+    }
+    t.checkExpect(unsupported, 4);
+
+    FloodItWorld hex = new FloodItWorld(
+        new FloodItGame(3, 5, new Random(1), new RegionEngine(), Topology.HEX));
+    BoardLayout layout = hex.layout;
+    t.checkExpect(layout.staggered, true);
+    t.checkExpect(layout.screenY(5, 5), 90);
+    t.checkExpect(layout.cellAt(100, 90, 5), 5);
+    t.checkExpect(layout.cellAt(100, 80, 5), -1);
+    t.checkExpect(layout.cellAt(100, 99, 5), 5);
+    t.checkExpect(layout.cellAt(100, 101, 5), 6);
+    t.checkExpect(layout.cellAt(80, 80, 5), 0);
+    t.checkExpect(hex.grid.get(0).right, null);
+    t.checkExpect(new FloodItWorld(3, 5, new Random(1)).layout.staggered, false);
+
+    Path path = Files.createTempFile("floodit", ".board");
+    try {
+      hex.game.applyMove((hex.game.floodColor + 1) % 3);
+      BoardFile.save(hex.game, path);
+      FloodItGame loaded = BoardFile.load(path, new WaveEngine());
+      t.checkExpect(loaded.board.topology, Topology.HEX);
+      t.checkExpect(this.sameBoard(loaded.board, hex.game.board), true);
+    }
+    finally {
+      Files.delete(path);
+    }
+  }
+
+  // tests the commands of a game server session, and serving them over TCP
+  void testGameServer(Tester t) throws IOException, InterruptedException {
+    GameSession session = new GameSession();
+    t.checkExpect(session.handle("MOVE 1"), "ERR no game, send NEW first");
+    t.checkExpect(session.handle("NEW 3 9"), "ERR bad arguments to NEW");
+    t.checkExpect(session.handle("NEW 3 2 58"), "OK 58 1 8");
+    t.checkExpect(session.handle("STATE"), "STATE 3 1 8 PLAYING 111000101");
+    t.checkExpect(session.handle("MOVE 2"), "ERR colors are 0 to 1");
+    t.checkExpect(session.handle("MOVE 1"), "OK 0 1 8 3 PLAYING");
+    t.checkExpect(session.handle("MOVE 0"), "OK 1 0 7 7 PLAYING");
+    t.checkExpect(session.handle("DIFF"), "DIFF 0 7 PLAYING 3+3 7+1");
+    t.checkExpect(session.handle("DIFF"), "DIFF 0 7 PLAYING");
+    t.checkExpect(session.handle("MOVE 1"), "OK 1 1 6 9 WON");
+    t.checkExpect(session.handle("DIFF"), "DIFF 1 6 WON 6+1 8+1");
+    t.checkExpect(session.handle("RESET").startsWith("OK 58 1 "), true);
+    t.checkExpect(session.handle("RESET").startsWith("OK 58 2 "), true);
+    t.checkExpect(session.handle("JUMP"), "ERR unknown command JUMP");
+    t.checkExpect(session.handle("QUIT"), "BYE");
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    RecordArchive archive = new RecordArchive(stream);
+    session = new GameSession(archive);
+    session.handle("NEW 3 2 58");
+    session.handle("MOVE 0");
+    session.handle("RESET");
+    session.handle("NEW 4 3 7");
+    session.handle("QUIT");
+    ArrayList<GameRecord> records = GameRecord.readAll(stream.toByteArray());
+    t.checkExpect(records.size(), 3);
+    t.checkExpect(records.get(0).eventCount, 1);
+    t.checkExpect(records.get(1).round, 1);
+    t.checkExpect(records.get(2).seed, 7L);
+    t.checkExpect(GameReplayer.verify(records.get(0), null), true);
+
+    try (GameServer server = new GameServer(0, archive)) {
+      LoadResult result = LoadGenerator.run(server.port(), 20, 5, 8, 4);
+      t.checkExpect(result.failed, 0);
+      t.checkExpect(result.latencies.length, 100);
+      t.checkExpect(result.percentile(0.99) >= result.percentile(0.5), true);
+      t.checkExpect(server.peak.get(), 20);
+    }
+    t.checkExpect(archive.count, 3 + 20);
+  }
+
+  // tests that resets refill the boards, engine arrays and Cells they have in place, and
+  // that dealing boards ahead deals the same boards from the same seed
+  void testResetInPlace(Tester t) {
+    FloodItGame sequential = new FloodItGame(3, 30, new Random(12), new RegionEngine());
+    ArrayList<byte[]> boards = new ArrayList<byte[]>();
+    Board board = sequential.board;
+    RegionEngine engine = (RegionEngine) sequential.engine;
+    int[] label = engine.label;
+    for (int k = 0; k < 6; k++) {
+      boards.add(sequential.board.colors.clone());
+      sequential.applyMove((sequential.floodColor + 1) % 3);
+      sequential.reset();
+    }
+    t.checkExpect(sequential.board, board);
+    t.checkExpect(engine.label, label);
+    // a reset allocates nothing per cell, unless the board has more regions than any
+    // before, past what measuring allocates
+    long measuring = -FloodItBench.allocatedBytes() + FloodItBench.allocatedBytes();
+    long least = Long.MAX_VALUE;
+    for (int k = 0; k < 4; k++) {
+      long before = FloodItBench.allocatedBytes();
+      sequential.reset();
+      least = Math.min(least, FloodItBench.allocatedBytes() - before - measuring);
+    }
+    t.checkExpect(least < board.cells / 4, true);
+
+    FloodItGame ahead = new FloodItGame(3, 30, new Random(12), new RegionEngine());
+    ahead.dealAhead();
+    boolean same = Arrays.equals(ahead.board.colors, boards.get(0));
+    for (int k = 1; k < 6; k++) {
+      if (k == 3) {
+        ahead.stopDealing();
+        t.checkExpect(ahead.dealer, null);
+      }
+      if (k == 4) {
+        ahead.dealAhead();
+      }
+      ahead.reset();
+      same = same && Arrays.equals(ahead.board.colors, boards.get(k));
+    }
+    t.checkExpect(same, true);
+    // the dealer deals the two boards it has in turn, and fills the one handed back last
+    // before it stops
+    Board current = ahead.board;
+    ahead.reset();
+    Board next = ahead.board;
+    ahead.reset();
+    ahead.stopDealing();
+    t.checkExpect(ahead.board == current && ahead.dealtAhead == next && next != current,
+        true);
+
+    FloodItWorld world = new FloodItWorld(3, 6, new Random(4));
+    ArrayList<Cell> grid = world.grid;
+    Cell corner = grid.get(0);
+    world.onMouseClicked(new Posn(100, 80));
+    world.reset();
+    t.checkExpect(world.grid, grid);
+    t.checkExpect(world.grid.get(0), corner);
+    boolean synced = true;
+    for (int i = 0; i < world.game.board.cells; i++) {
+      synced = synced && grid.get(i).color.equals(world.randColor.get(world.game.board.color(i)))
+          && grid.get(i).flooded == world.game.board.isFlooded(i);
+    }
+    t.checkExpect(synced, true);
+    t.checkExpect(grid.get(0).right, grid.get(1));
+  }
+
+  // tests dealing graded boards from a puzzle pool
+  void testPuzzlePool(Tester t) throws InterruptedException {
+    PuzzlePool pool = new PuzzlePool(4, 10, 1, 2, new Random(3));
+    Puzzle puzzle = pool.take(PuzzlePool.HARD);
+    t.checkExpect(puzzle.tier, PuzzlePool.HARD);
+    FloodItGame graded = new FloodItGame(puzzle.board.copy(), 4, 0, new RegionEngine());
+    t.checkExpect(BatchRunner.play(graded, new GreedyPolicy(), null), puzzle.moves);
+    t.checkExpect(puzzle.board.floodedCount, 1);
+    while (!pool.full()) {
+      Thread.onSpinWait();
+    }
+    Puzzle easy = pool.take(PuzzlePool.EASY);
+    t.checkExpect(easy.moves <= pool.grades.percentile(1.0 / 3), true);
+    t.checkExpect(pool.grades.games >= 6, true);
+
+    // a pool that cannot refill a tier in time, here with its producers stopped, hands
+    // over a board of another tier, which says so, and a closed pool hands over none
+    PuzzlePool slow = new PuzzlePool(4, 10, 1, 1, new Random(6));
+    while (!slow.full()) {
+      Thread.onSpinWait();
+    }
+    slow.producers.shutdownNow();
+    slow.producers.awaitTermination(1, TimeUnit.MINUTES);
+    slow.tiers.get(PuzzlePool.HARD).clear();
+    t.checkExpect(slow.take(PuzzlePool.HARD, 20).tier == PuzzlePool.HARD, false);
+    slow.close();
+    boolean closed = false;
+    try {
+      slow.take(PuzzlePool.HARD);
+    }
+    catch (IllegalStateException e) {
+      closed = true;
+    }
+    t.checkExpect(closed, true);
+
+    FloodItGame game = new FloodItGame(4, 10, 5L, null);
+    game.usePuzzles(pool, PuzzlePool.MEDIUM);
+    game.reset();
+    t.checkExpect(game.dealtTier, PuzzlePool.MEDIUM);
+    t.checkExpect(game.movesLimit, game.gradedMoves);
+    t.checkExpect(game.record.limit, game.gradedMoves);
+    while (!game.won) {
+      game.applyMove(new GreedyPolicy().choose(
+          new FloodItGame(game.board.copy(), 4, 1, new RegionEngine()), null));
+    }
+    t.checkExpect(game.movesLimit, 0);
+    game.record.finish(game);
+    t.checkExpect(GameReplayer.verify(game.record, new BitboardEngine()), true);
+
+    FloodItWorld world = new FloodItWorld(4, 10, new Random(1));
+    world.usePuzzles(pool, PuzzlePool.EASY);
+    world.onKeyEvent("3");
+    t.checkExpect(world.game.tier, PuzzlePool.HARD);
+    t.checkExpect(world.game.movesLimit, world.game.gradedMoves);
+    pool.close();
+  }
+
+  // tests simulating the game on its own thread and drawing it from snapshots
+  void testSimulation(Tester t) throws InterruptedException {
+    FloodItWorld world = new FloodItWorld(3, 6, new Random(9));
+    world.simulate(0.001);
+    Simulation simulation = world.simulation;
+    Snapshot held = simulation.acquire();
+    long tick = held.tick;
+    byte[] colors = held.colors.clone();
+    int[] events = new int[1];
+    for (int k = 0; k < 1000; k++) {
+      simulation.post(() -> events[0]++);
+    }
+    world.onMouseClicked(new Posn(world.layout.screenX(35, 6), world.layout.screenY(35, 6)));
+    while (simulation.ticks < tick + 5) {
+      Thread.onSpinWait();
+    }
+    t.checkExpect(held.tick, tick);
+    t.checkExpect(Arrays.equals(held.colors, colors), true);
+    simulation.release();
+    world.onTick();
+    world.makeScene();
+    world.onKeyEvent("u");
+    world.onKeyEvent("y");
+    world.stopSimulating();
+    t.checkExpect(events[0], 1000);
+    t.checkExpect(simulation.skipped > 0, true);
+    t.checkExpect(world.game.movesLimit, world.maxMovesGen() - 1);
+    Snapshot front = simulation.acquire();
+    t.checkExpect(front.movesLimit, world.game.movesLimit);
+    boolean matches = true;
+    for (int i = 0; i < world.game.board.cells; i++) {
+      matches = matches && front.colors[i] == world.game.board.color(i);
+    }
+    simulation.release();
+    t.checkExpect(matches, true);
+    t.checkExpect(world.makeScene(), world.drawScene(world.game.won, world.game.lost, false,
+        world.game.movesLimit, world.game.time, 6, i -> world.game.board.color(i), null));
+
+    FloodItWorld still = new FloodItWorld(3, 6, new Random(9));
+    Simulation manual = new Simulation(still, 1000000);
+    manual.publish();
+    Board board = still.game.board;
+    board.setColor(7, (board.color(7) + 1) % 3);
+    manual.mark(7);
+    manual.publish();
+    Snapshot marked = manual.acquire();
+    t.checkExpect(marked.seq, 3L);
+    t.checkExpect(marked.all, false);
+    t.checkExpect(marked.dirtyCount, 1);
+    t.checkExpect(marked.dirty[0], 7);
+    t.checkExpect((int) marked.colors[7], board.color(7));
+    manual.release();
+    board.setColor(8, (board.color(8) + 1) % 3);
+    manual.mark(8);
+    manual.publish();
+    Snapshot next = manual.acquire();
+    t.checkExpect(next.dirtyCount, 1);
+    t.checkExpect((int) next.colors[7], board.color(7));
+    t.checkExpect((int) next.colors[8], board.color(8));
+    manual.release();
+
+    FloodItWorld big = new FloodItWorld(4, 40, new Random(2));
+    big.simulate(0.001);
+    int zoom = big.view.zoom;
+    big.onKeyEvent("-");
+    t.checkExpect(big.view.zoom, zoom);
+    big.makeScene();
+    t.checkExpect(big.view.zoom, zoom - 1);
+    int target = 1;
+    while (big.game.board.color(target) == big.game.floodColor) {
+      target++;
+    }
+    big.onMouseClicked(this.viewPosn(big, target));
+    big.makeScene();
+    big.stopSimulating();
+    t.checkExpect(big.game.movesLimit, big.maxMovesGen() - 1);
+    big.makeScene();
+    t.checkExpect(this.rasterMatches(big), true);
+
+    FloodItWorld drawn = new FloodItWorld(4, 40, new Random(2));
+    Simulation frames = new Simulation(drawn, 1000000);
+    Board bigBoard = drawn.game.board;
+    t.checkExpect(this.drawSnapshot(drawn, frames) > 0, true);
+    bigBoard.setColor(7, (bigBoard.color(7) + 1) % 4);
+    frames.mark(7);
+    frames.publish();
+    t.checkExpect(this.drawSnapshot(drawn, frames), 1);
+    t.checkExpect(this.drawSnapshot(drawn, frames), 0);
+    bigBoard.setColor(9, (bigBoard.color(9) + 1) % 4);
+    frames.mark(9);
+    frames.publish();
+    frames.publish();
+    t.checkExpect(this.drawSnapshot(drawn, frames), 1);
+    t.checkExpect(drawn.raster.mip.colors[0][9], (byte) bigBoard.color(9));
+  }
+
+  // draws the front snapshot of the simulation into the world's raster the way a frame
+  // does, and returns the number of cells or blocks painted
+  int drawSnapshot(FloodItWorld world, Simulation simulation) {
+    Snapshot snapshot = simulation.acquire();
+    try {
+      byte[] colors = snapshot.colors;
+      return world.showSnapshot(snapshot).repaint(i -> colors[i]);
+    }
+    finally {
+      simulation.release();
+    }
+  }
+
+  // tests drawing big boards into a raster that only repaints the cells that changed
+  void testBoardRaster(Tester t) {
+    FloodItWorld world = new FloodItWorld(4, 40, new Random(2));
+    BoardRaster raster = world.raster;
+    t.checkExpect(new FloodItWorld(4, 24, new Random(2)).raster, null);
+    t.checkExpect(raster.repaint(i -> world.game.board.color(i)), 1600);
+    t.checkExpect(raster.repaint(i -> world.game.board.color(i)), 0);
+    world.onTick();
+    world.makeScene();
+    t.checkExpect(this.rasterMatches(world), true);
+    world.onMouseClicked(this.viewPosn(world, 1));
+    world.makeScene();
+    world.onTick();
+    WaveReplay replay = world.game.replay;
+    t.checkExpect(raster.dirtyCount, replay.layerStart[1] - replay.layerStart[0]);
+    world.makeScene();
+    t.checkExpect(this.rasterMatches(world), true);
+    world.game.move((world.game.floodColor + 1) % 4);
+    for (int k = 0; k < 3; k++) {
+      world.onTick();
+      t.checkExpect(raster.all, false);
+      world.makeScene();
+      t.checkExpect(this.rasterMatches(world), true);
+    }
+    world.onMouseClicked(this.viewPosn(world, 80));
+    world.makeScene();
+    world.onKeyEvent("u");
+    t.checkExpect(raster.all, true);
+    world.makeScene();
+    t.checkExpect(this.rasterMatches(world), true);
+    world.reset();
+    t.checkExpect(world.raster, raster);
+    world.makeScene();
+    t.checkExpect(this.rasterMatches(world), true);
+  }
+
+  // tests zooming and panning the view of a big board, drawn from its MipMap when zoomed out
+  void testViewport(Tester t) {
+    FloodItWorld world = new FloodItWorld(4, 200, new Random(3), new RegionEngine());
+    Viewport view = world.view;
+    BoardRaster raster = world.raster;
+    t.checkExpect(raster.mip.levels, 9);
+    t.checkExpect(raster.mip.sides[8], 1);
+    t.checkExpect(view.zoom, 0);
+    t.checkExpect(raster.repaint(i -> world.game.board.color(i)), 200 * 200);
+    t.checkExpect(this.rasterMatches(world), true);
+    t.checkExpect(view.cellAt(70, 70), 0);
+    t.checkExpect(view.cellAt(69, 70), -1);
+    t.checkExpect(view.cellAt(71, 75), 205);
+    t.checkExpect(view.cellAt(72, 70), 400);
+    t.checkExpect(view.cellAt(270, 70), -1);
+    t.checkExpect(world.cellAt(world.screenPosn(205)), 205);
+
+    world.onKeyEvent("-");
+    t.checkExpect(view.zoom, -1);
+    t.checkExpect(raster.repaint(i -> world.game.board.color(i)), 100 * 100);
+    t.checkExpect(this.rasterMatches(world), true);
+    t.checkExpect(view.cellAt(71, 75), 410);
+    world.onKeyEvent("right");
+    t.checkExpect(view.panX, 0);
+    for (int k = 0; k < 10; k++) {
+      world.onKeyEvent("-");
+    }
+    t.checkExpect(view.zoom, -8);
+    world.makeScene();
+    t.checkExpect(this.rasterMatches(world), true);
+    world.onKeyEvent("+");
+    t.checkExpect(view.zoom, -7);
+    t.checkExpect(view.cellAt(71, 70), 128 * 200);
+    int shown = raster.mip.color(7, 1, 0);
+    t.checkExpect(raster.colorAt(71, 70), shown);
+    t.checkExpect(raster.colorAt(69, 70), -1);
+    world.onMouseClicked(new Posn(71, 70));
+    t.checkExpect(world.game.floodColor, shown);
+    world.game.move((world.game.floodColor + 1) % 4);
+    for (int k = 0; k < 20; k++) {
+      world.onTick();
+      world.makeScene();
+    }
+    t.checkExpect(this.rasterMatches(world), true);
+
+    for (int k = 0; k < 20; k++) {
+      world.onKeyEvent("=");
+    }
+    t.checkExpect(view.zoom, Viewport.MAX_ZOOM);
+    t.checkExpect(view.cellsAcross(view.width), 11);
+    int panX = view.panX;
+    int panY = view.panY;
+    world.onKeyEvent("right");
+    world.onKeyEvent("down");
+    t.checkExpect(view.panX, panX + 3);
+    t.checkExpect(view.panY, panY + 3);
+    t.checkExpect(view.cellAt(70 + 32, 70 + 64), (panX + 4) * 200 + panY + 5);
+    t.checkExpect(world.cellAt(world.screenPosn((panX + 4) * 200 + panY + 5)),
+        (panX + 4) * 200 + panY + 5);
+    t.checkExpect(world.cellAt(world.screenPosn(0)), -1);
+    t.checkExpect(raster.repaint(i -> world.game.board.color(i)), 12 * 12);
+    world.onMouseClicked(new Posn(70 + 32, 70 + 64));
+    for (int k = 0; k < 20; k++) {
+      world.onTick();
+      world.makeScene();
+    }
+    t.checkExpect(this.rasterMatches(world), true);
+    for (int k = 0; k < 100; k++) {
+      world.onKeyEvent("right");
+      world.onKeyEvent("down");
+    }
+    t.checkExpect(view.panX, 200 - 11);
+    t.checkExpect(view.cellAt(70 + 359, 70), -1);
+    world.makeScene();
+    t.checkExpect(this.rasterMatches(world), true);
+    t.checkExpect(raster.image.getColorAt(359, 0), BoardRaster.CLEAR);
+
+    FloodItWorld hex = new FloodItWorld(
+        new FloodItGame(3, 40, new Random(1), new RegionEngine(), Topology.HEX));
+    Viewport hexView = hex.view;
+    t.checkExpect(hexView.zoom, 3);
+    t.checkExpect(hexView.shift(1), 4);
+    t.checkExpect(hexView.cellAt(70, 72), 0);
+    t.checkExpect(hexView.cellAt(78, 72), -1);
+    t.checkExpect(hexView.cellAt(78, 74), 40);
+    t.checkExpect(hexView.cellAt(78, 82), 41);
+    t.checkExpect(hex.cellAt(hex.screenPosn(41)), 41);
+    hex.makeScene();
+    t.checkExpect(this.rasterMatches(hex), true);
+    t.checkExpect(hex.raster.image.getColorAt(8, 0), BoardRaster.CLEAR);
+    hex.onKeyEvent("down");
+    hex.makeScene();
+    t.checkExpect(this.rasterMatches(hex), true);
+    hex.onKeyEvent("-");
+    t.checkExpect(hexView.shift(1), 2);
+    hex.makeScene();
+    t.checkExpect(this.rasterMatches(hex), true);
+
+    MipMap mip = new MipMap(3);
+    t.checkExpect(mip.levels, 3);
+    mip.set(1, 2);
+    t.checkExpect(mip.color(1, 0, 0), 0);
+    mip.set(3, 2);
+    t.checkExpect(mip.color(1, 0, 0), 0);
+    mip.set(0, 2);
+    t.checkExpect(mip.color(1, 0, 0), 2);
+    t.checkExpect(mip.color(2, 0, 0), 0);
+    mip.set(8, 1);
+    t.checkExpect(mip.color(1, 1, 1), 1);
+    mip.set(2, 2);
+    mip.set(5, 2);
+    t.checkExpect(mip.color(1, 0, 1), 2);
+    t.checkExpect(mip.color(2, 0, 0), 2);
+  }
+
+  // returns the screen position of the center of the given cell in the view of the world,
+  // zoomed in
+  Posn viewPosn(FloodItWorld world, int i) {
+    Viewport view = world.view;
+    int pixels = 1 << view.zoom;
+    return new Posn(view.left + (i / view.size - view.panX) * pixels + pixels / 2,
+        view.top + (i % view.size - view.panY) * pixels + pixels / 2);
+  }
+
+  // returns true if the world's MipMap holds the color every cell is shown in and the mode
+  // of every block, and every pixel of the view shows the cell or block under it
+  boolean rasterMatches(FloodItWorld world) {
+    BoardRaster raster = world.raster;
+    Board board = world.game.board;
+    MipMap mip = raster.mip;
+    boolean matches = true;
+    for (int i = 0; i < board.cells; i++) {
+      matches = matches && mip.colors[0][i] == world.game.replay.shownColor(board, i);
+    }
+    for (int k = 1; k < mip.levels; k++) {
+      for (int x = 0; x < mip.sides[k]; x++) {
+        for (int y = 0; y < mip.sides[k]; y++) {
+          matches = matches && mip.color(k, x, y) == mip.mode(k - 1, 2 * x, 2 * y);
+        }
+      }
+    }
+    Viewport view = world.view;
+    int level = Math.max(0, -view.zoom);
+    for (int px = 0; px < view.width; px++) {
+      for (int py = 0; py < view.height; py++) {
+        int i = view.cellAt(view.left + px, view.top + py);
+        if (i >= 0) {
+          Color shown = world.randColor.get(mip.color(level, (i / board.size) >> level,
+              (i % board.size) >> level));
+          matches = matches && raster.image.getColorAt(px, py).equals(shown);
+        }
+      }
+    }
+    return matches;
+  }
+
+  // returns true if the two boards hold the same cells and counters
+  boolean sameBoard(Board a, Board b) {
+    return Arrays.equals(a.colors, b.colors) && Arrays.equals(a.flooded, b.flooded)
+        && Arrays.equals(a.floodedByColor, b.floodedByColor) && a.floodedCount == b.floodedCount;
+  }
+
+  // tests cellAt against Cell.inBounds
+  void testCellAt(Tester t) {
+    this.initFlood();
+    BoardLayout layout = this.world3.layout;
+    t.checkExpect(layout.cellAt(80, 80, 3), 0);
+    t.checkExpect(layout.cellAt(71, 89, 3), 0);
+    t.checkExpect(layout.cellAt(70, 80, 3), -1);
+    t.checkExpect(layout.cellAt(90, 80, 3), -1);
+    t.checkExpect(layout.cellAt(100, 80, 3), 3);
+    t.checkExpect(layout.cellAt(80, 100, 3), 1);
+    t.checkExpect(layout.cellAt(120, 120, 3), 8);
+    t.checkExpect(layout.cellAt(140, 120, 3), -1);
+    boolean agrees = true;
+    for (int px = 50; px < 150; px++) {
+      for (int py = 50; py < 150; py++) {
+        int i = layout.cellAt(px, py, 3);
+        for (int k = 0; k < 9; k++) {
+          agrees = agrees && (i == k) == this.world3.grid.get(k).inBounds(new Posn(px, py));
+        }
+      }
+    }
+    t.checkExpect(agrees, true);
   }
 
   // tests maxMovesGen
@@ -563,20 +1276,20 @@ class ExamplesFloodIt {
   // tests reset
   boolean testReset(Tester t) {
     this.initFlood();
-    world2.movesLimit = 800;
-    world2.lost = true;
-    world2.won = true;
-    world2.time = 110;
+    world2.game.movesLimit = 800;
+    world2.game.lost = true;
+    world2.game.won = true;
+    world2.game.time = 110;
     world2.reset();
-    return t.checkExpect(world2.movesLimit, 7) && t.checkExpect(world2.lost, false)
-        && t.checkExpect(world2.won, false) && t.checkExpect(world2.time, 0);
+    return t.checkExpect(world2.game.movesLimit, 7) && t.checkExpect(world2.game.lost, false)
+        && t.checkExpect(world2.game.won, false) && t.checkExpect(world2.game.time, 0);
   }
 
   // tests checkLoss
   void testCheckLoss(Tester t) {
     this.initFlood();
     t.checkExpect(this.world2.checkLoss(), false);
-    this.world2.movesLimit = 0;
+    this.world2.game.movesLimit = 0;
     t.checkExpect(this.world1.checkLoss(), false);
     t.checkExpect(this.world2.checkLoss(), true);
   }
@@ -584,38 +1297,372 @@ class ExamplesFloodIt {
   // tests checkWin
   void testCheckWin(Tester t) {
     this.initFlood();
-    this.world1.movesLimit = 0;
-    this.world2.movesLimit = 0;
+    this.world1.game.movesLimit = 0;
+    this.world2.game.movesLimit = 0;
     t.checkExpect(this.world1.checkWin(), true);
     t.checkExpect(this.world2.checkWin(), false);
   }
 
+  // tests floodedCount, progress and floodSettled
+  void testFloodCounters(Tester t) {
+    this.initFlood();
+    t.checkExpect(this.world2.game.floodedCount(), 1);
+    t.checkExpect(this.world2.game.progress(), 25.0);
+    t.checkExpect(this.world2.game.floodSettled(), true);
+    this.world2.onTick();
+    t.checkExpect(this.world2.game.floodedCount(), 1);
+    this.world2.onTick();
+    t.checkExpect(this.world2.game.floodedCount(), 3);
+    this.world2.game.floodColor = this.world2.randColor.indexOf(Color.RED);
+    this.world2.game.floodNext.add(0);
+    t.checkExpect(this.world2.game.floodSettled(), false);
+    this.world2.onTick();
+    this.world2.onTick();
+    t.checkExpect(this.world2.game.floodSettled(), true);
+    t.checkExpect(this.world2.game.won, false);
+    this.world2.onTick();
+    t.checkExpect(this.world2.game.progress(), 100.0);
+    t.checkExpect(this.world2.game.won, true);
+  }
+
+  // tests that the region engine leaves boards exactly as the cell wave does
+  void testRegionEngine(Tester t) {
+    Random moves = new Random(3);
+    boolean identical = true;
+    for (int seed = 0; seed < 30; seed++) {
+      Board waveBoard = new Board(5 + seed);
+      waveBoard.fill(new Random(seed), 3 + seed % 6);
+      Board regionBoard = waveBoard.copy();
+      FloodEngine wave = new WaveEngine();
+      FloodEngine regions = new RegionEngine();
+      wave.load(waveBoard);
+      regions.load(regionBoard);
+      for (int m = 0; m < 40; m++) {
+        int c = moves.nextInt(3 + seed % 6);
+        wave.move(c);
+        regions.move(c);
+        identical = identical && wave.floodedCount() == regions.floodedCount()
+            && wave.colorAt(m * 7 % waveBoard.cells) == regions.colorAt(m * 7 % waveBoard.cells);
+      }
+      regions.store();
+      identical = identical && Arrays.equals(waveBoard.colors, regionBoard.colors)
+          && Arrays.equals(waveBoard.flooded, regionBoard.flooded);
+    }
+    t.checkExpect(identical, true);
+
+    // moves leave the board behind until it is read
+    FloodItGame game = new FloodItGame(3, 20, new Random(5), new RegionEngine());
+    int stored = game.board.floodedCount;
+    game.applyMove((game.floodColor + 1) % 3);
+    game.applyMove((game.floodColor + 1) % 3);
+    t.checkExpect(game.stale, true);
+    t.checkExpect(game.board.floodedCount, stored);
+    t.checkExpect(game.refresh(), true);
+    t.checkExpect(game.board.floodedCount, game.floodedCount());
+    t.checkExpect(game.board.monochrome(game.floodColor), true);
+  }
+
+  // tests that the bitboard engine floods exactly like the wave, across word boundaries
+  void testBitboardEngine(Tester t) {
+    Random moves = new Random(4);
+    boolean identical = true;
+    int[] sizes = { 1, 2, 7, 63, 64, 65, 100, 130 };
+    for (int seed = 0; seed < 24; seed++) {
+      int colors = 2 + seed % 7;
+      Board waveBoard = new Board(sizes[seed % sizes.length]);
+      waveBoard.fill(new Random(seed), colors);
+      Board bitBoard = waveBoard.copy();
+      FloodEngine wave = new WaveEngine();
+      BitboardEngine bits = new BitboardEngine();
+      wave.load(waveBoard);
+      bits.load(bitBoard);
+      identical = identical && wave.floodedCount() == bits.floodedCount();
+      for (int m = 0; m < 60; m++) {
+        int c = moves.nextInt(colors);
+        wave.move(c);
+        bits.move(c);
+        int i = m * 31 % waveBoard.cells;
+        identical = identical && wave.floodedCount() == bits.floodedCount()
+            && wave.colorAt(i) == bits.colorAt(i)
+            && waveBoard.isFlooded(i) == bits.isFlooded(i);
+      }
+      bits.store();
+      identical = identical && Arrays.equals(waveBoard.colors, bitBoard.colors)
+          && Arrays.equals(waveBoard.flooded, bitBoard.flooded)
+          && Arrays.equals(waveBoard.floodedByColor, bitBoard.floodedByColor);
+    }
+    t.checkExpect(identical, true);
+    FloodItGame game = new FloodItGame(3, 70, new Random(2), new BitboardEngine());
+    while (!game.won) {
+      game.play((game.floodColor + 1) % 3);
+    }
+    game.refresh();
+    t.checkExpect(game.board.allFlooded(game.floodColor), true);
+  }
+
+  // tests that the tiled engine floods exactly like the wave, whatever the tile size
+  void testTileFloodEngine(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    Random moves = new Random(5);
+    boolean identical = true;
+    int[] tileSizes = { 1, 3, 7, 16, 64 };
+    for (int seed = 0; seed < 20; seed++) {
+      int colors = 2 + seed % 7;
+      Board waveBoard = new Board(10 + seed * 3);
+      waveBoard.fill(new Random(seed), colors);
+      Board tileBoard = waveBoard.copy();
+      FloodEngine wave = new WaveEngine();
+      FloodEngine tiles = new TileFloodEngine(pool, tileSizes[seed % tileSizes.length]);
+      wave.load(waveBoard);
+      tiles.load(tileBoard);
+      for (int m = 0; m < 40; m++) {
+        int c = moves.nextInt(colors);
+        wave.move(c);
+        tiles.move(c);
+        identical = identical && wave.floodedCount() == tiles.floodedCount()
+            && wave.colorAt(m * 7 % waveBoard.cells) == tiles.colorAt(m * 7 % waveBoard.cells);
+      }
+      tiles.store();
+      identical = identical && Arrays.equals(waveBoard.colors, tileBoard.colors)
+          && Arrays.equals(waveBoard.flooded, tileBoard.flooded)
+          && Arrays.equals(waveBoard.floodedByColor, tileBoard.floodedByColor);
+    }
+    pool.shutdown();
+    t.checkExpect(identical, true);
+    TileFloodEngine engine = new TileFloodEngine();
+    FloodItGame game = new FloodItGame(3, 40, new Random(2), engine);
+    while (!game.won) {
+      game.play((game.floodColor + 1) % 3);
+    }
+    game.refresh();
+    t.checkExpect(game.board.allFlooded(game.floodColor), true);
+    t.checkExpect(engine.rounds > 0, true);
+    // a move drops the frontier cells left without unflooded neighbors, so once the board
+    // is flooded one more move leaves no frontier to start from
+    engine.move((game.floodColor + 1) % 3);
+    int frontier = 0;
+    for (Tile tile : engine.tiles) {
+      frontier += tile.frontierCount;
+    }
+    t.checkExpect(frontier, 0);
+  }
+
+  // tests playing FloodItWorld with an engine
+  void testEngineWorld(Tester t) {
+    this.initFlood();
+    FloodItWorld world = new FloodItWorld(2, 2, new Random(58), new RegionEngine());
+    t.checkExpect(world.game.floodedCount(), 3);
+    t.checkExpect(world.grid.get(2).flooded, true);
+    t.checkExpect(world.game.floodNext.size(), 0);
+    t.checkExpect(world.checkWin(), false);
+    world.onMouseClicked(new Posn(100, 100));
+    t.checkExpect(world.game.movesLimit, 6);
+    t.checkExpect(world.checkWin(), true);
+    t.checkExpect(world.grid.get(1).color, Color.GREEN);
+    world.makeScene();
+    t.checkExpect(world.grid.get(1).color, Color.RED);
+    t.checkExpect(world.game.board.allFlooded(0), true);
+  }
+
+  // tests playing headless games with both policies
+  void testBatchRunner(Tester t) {
+    FloodItGame game = new FloodItGame(4, 10, new Random(5), new RegionEngine());
+    int moves = BatchRunner.play(game, new GreedyPolicy(), new Random(1));
+    t.checkExpect(game.checkWin(), true);
+    t.checkExpect(game.maxMovesGen() - game.movesLimit, moves);
+    FloodItGame replay = new FloodItGame(4, 10, new Random(5), null);
+    t.checkExpect(BatchRunner.play(replay, new RandomPolicy(), new Random(1)) > 0, true);
+    t.checkExpect(replay.checkWin(), true);
+    BatchStats stats = BatchRunner.run(4, 10, new GreedyPolicy(), 0, 200, 4);
+    t.checkExpect(stats.games, 200L);
+    t.checkExpect(stats.merge(new BatchStats()).games, 200L);
+    t.checkExpect(stats.limit, new FloodItGame(4, 10, new Random(0), null).movesLimit);
+    t.checkExpect(stats.percentile(1.0) >= stats.percentile(0.5), true);
+    t.checkExpect(stats.movesHistogram[moves] > 0, true);
+  }
+
+  // tests that the solver's solutions are as short as any and replay to a win
+  void testSolver(Tester t) {
+    for (int seed = 0; seed < 6; seed++) {
+      FloodItWorld world = new FloodItWorld(3, 5, new Random(seed));
+      world.game.settle();
+      int[] solution = new Solver(world.game.board).solve();
+      t.checkExpect(this.solvable(world.game.board, world.game.floodColor, solution.length),
+          true);
+      t.checkExpect(this.solvable(world.game.board, world.game.floodColor,
+          solution.length - 1), false);
+      for (int c : solution) {
+        world.game.move(c);
+        while (world.game.floodNext.size() > 0) {
+          world.onTick();
+        }
+      }
+      t.checkExpect(world.checkWin(), true);
+    }
+  }
+
+  // returns true if some sequence of at most moves colors floods the whole board, trying
+  // every one of them
+  boolean solvable(Board board, int color, int moves) {
+    if (board.floodedCount == board.cells) {
+      return true;
+    }
+    for (int c = 0; moves > 0 && c < Board.PALETTE; c++) {
+      if (c != color) {
+        Board next = board.copy();
+        WaveEngine wave = new WaveEngine();
+        wave.board = next;
+        wave.frontier = new Frontier(next.cells);
+        wave.move(c);
+        if (next.floodedCount > board.floodedCount && this.solvable(next, c, moves - 1)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // tests that hints finish within their budget and suggest a useful color
+  void testMoveAdvisor(Tester t) {
+    FloodItGame game = new FloodItGame(6, 30, new Random(4), null);
+    MoveAdvisor advisor = new MoveAdvisor(2);
+    Advice advice = advisor.advise(game, 50);
+    t.checkExpect(advice.result.join() >= 0, true);
+    t.checkExpect(advice.bestColor() != game.floodColor, true);
+    t.checkExpect(advice.root.gain(advice.bestColor()) > 0, true);
+    t.checkExpect(advice.rollouts.sum() > 0, true);
+    t.checkExpect(advice.bestLength() > 0, true);
+    Advice cancelled = advisor.advise(game, 60000);
+    cancelled.cancel();
+    t.checkExpect(cancelled.result.join() >= 0, true);
+    FloodItGame engineGame = new FloodItGame(6, 30, new Random(4), new RegionEngine());
+    engineGame.applyMove(advice.bestColor());
+    Advice next = advisor.advise(engineGame, 50);
+    t.checkExpect(engineGame.stale, false);
+    t.checkExpect(Arrays.equals(next.board.colors, engineGame.board.colors), true);
+    t.checkExpect(next.result.join() != engineGame.floodColor, true);
+    advisor.shutdown();
+
+    this.initFlood();
+    this.world3.game.settle();
+    this.world3.onKeyEvent("h");
+    int hinted = this.world3.hint.result.join();
+    t.checkExpect(hinted != this.world3.game.floodColor, true);
+    for (int i = 0; i < 9; i++) {
+      if (this.world3.game.colorAt(i) == hinted && this.world3.hint != null) {
+        this.world3.onMouseClicked(new Posn(this.world3.layout.screenX(i, 3),
+            this.world3.layout.screenY(i, 3)));
+      }
+    }
+    t.checkExpect(this.world3.hint, null);
+    t.checkExpect(this.world3.game.movesLimit, 7);
+  }
+
   void testFlood(Tester t) {
     this.initFlood();
-    this.world2.floodColor = Color.GREEN;
-    t.checkExpect(world2.floodNext.get(0), this.w20);
+    this.world2.game.floodColor = this.world2.randColor.indexOf(Color.GREEN);
+    t.checkExpect(world2.grid.get(world2.game.floodNext.get(0)), this.w20);
     this.world2.flood();
-    t.checkExpect(world2.floodNext.contains(w20), false);
-    t.checkExpect(world2.floodNext.get(0), this.w21);
-    t.checkExpect(world2.floodNext.get(1), this.w22);
+    t.checkExpect(world2.game.floodNext.contains(0), false);
+    t.checkExpect(world2.grid.get(world2.game.floodNext.get(0)), this.w21);
+    t.checkExpect(world2.grid.get(world2.game.floodNext.get(1)), this.w22);
     this.world2.flood();
-    t.checkExpect(world2.floodNext.contains(w20), false);
-    t.checkExpect(world2.floodNext.contains(w21), false);
-    t.checkExpect(world2.floodNext.contains(w22), false);
-    t.checkExpect(world2.floodNext.size(), 0);
+    t.checkExpect(world2.game.floodNext.contains(0), false);
+    t.checkExpect(world2.game.floodNext.contains(1), false);
+    t.checkExpect(world2.game.floodNext.contains(2), false);
+    t.checkExpect(world2.game.floodNext.size(), 0);
 
-    this.world2.floodColor = Color.RED;
-    world2.floodNext.add(world2.grid.get(0));
+    this.world2.game.floodColor = this.world2.randColor.indexOf(Color.RED);
+    world2.game.floodNext.add(0);
     this.world2.flood();
     t.checkExpect(world2.grid.get(0).color, Color.RED);
-    t.checkExpect(world2.floodNext.contains(w20), false);
-    t.checkExpect(world2.floodNext.get(0), world2.grid.get(1));
-    t.checkExpect(world2.floodNext.get(1), world2.grid.get(2));
+    t.checkExpect(world2.game.board.color(0), 0);
+    t.checkExpect(world2.game.floodNext.contains(0), false);
+    t.checkExpect(world2.game.floodNext.get(0), 1);
+    t.checkExpect(world2.game.floodNext.get(1), 2);
     this.world2.flood();
-    t.checkExpect(world2.floodNext.contains(w20), false);
-    t.checkExpect(world2.floodNext.contains(w21), false);
-    t.checkExpect(world2.floodNext.contains(w22), false);
-    t.checkExpect(world2.floodNext.get(0), world2.grid.get(3));
+    t.checkExpect(world2.game.floodNext.contains(0), false);
+    t.checkExpect(world2.game.floodNext.contains(1), false);
+    t.checkExpect(world2.game.floodNext.contains(2), false);
+    t.checkExpect(world2.game.floodNext.get(0), 3);
+  }
+
+  // tests the neighbor arithmetic of Board
+  void testBoardNeighbors(Tester t) {
+    Board board = new Board(3);
+    t.checkExpect(board.cells, 9);
+    t.checkExpect(board.top(1), -1);
+    t.checkExpect(board.top(4), 1);
+    t.checkExpect(board.left(3), -1);
+    t.checkExpect(board.left(4), 3);
+    t.checkExpect(board.right(5), -1);
+    t.checkExpect(board.right(4), 5);
+    t.checkExpect(board.bottom(7), -1);
+    t.checkExpect(board.bottom(4), 7);
+  }
+
+  // tests floodStep and allFlooded
+  void testBoardFloodStep(Tester t) {
+    this.initFlood();
+    Board board = this.world2.game.board;
+    Frontier frontier = new Frontier(board.cells);
+    frontier.add(0);
+    board.floodStep(frontier, 1);
+    t.checkExpect(board.isFlooded(0), true);
+    t.checkExpect(frontier.size(), 2);
+    t.checkExpect(frontier.get(0), 1);
+    t.checkExpect(frontier.get(1), 2);
+    board.floodStep(frontier, 1);
+    t.checkExpect(frontier.size(), 0);
+    t.checkExpect(board.allFlooded(1), false);
+    frontier.add(0);
+    board.floodStep(frontier, 0);
+    t.checkExpect(board.color(0), 0);
+    t.checkExpect(frontier.get(0), 1);
+    t.checkExpect(frontier.get(1), 2);
+    board.floodStep(frontier, 0);
+    t.checkExpect(frontier.size(), 1);
+    t.checkExpect(frontier.get(0), 3);
+    board.floodStep(frontier, 0);
+    t.checkExpect(board.allFlooded(0), true);
+    t.checkExpect(board.allFlooded(1), false);
+  }
+
+  // tests that fill draws one color per cell from the Random in index order
+  void testBoardFill(Tester t) {
+    Board board = new Board(40);
+    board.fill(new Random(7), 5);
+    Random check = new Random(7);
+    boolean identical = true;
+    for (int i = 0; i < board.cells; i++) {
+      identical = identical && board.color(i) == check.nextInt(5);
+    }
+    t.checkExpect(identical, true);
+    t.checkExpect(board.isFlooded(0), true);
+    t.checkExpect(board.isFlooded(1), false);
+  }
+
+  // tests that the frontier drops duplicates and reuses its ring
+  void testFrontier(Tester t) {
+    Frontier frontier = new Frontier(100);
+    for (int i = 0; i < 40; i++) {
+      frontier.add(i % 20);
+    }
+    t.checkExpect(frontier.size(), 20);
+    t.checkExpect(frontier.contains(19), true);
+    frontier.nextGeneration();
+    frontier.add(3);
+    t.checkExpect(frontier.poll(), 0);
+    t.checkExpect(frontier.contains(3), true);
+    t.checkExpect(frontier.contains(0), false);
+    frontier.clear();
+    t.checkExpect(frontier.size(), 0);
+    t.checkExpect(frontier.contains(3), false);
+    for (int i = 0; i < 100; i++) {
+      frontier.add(i);
+    }
+    t.checkExpect(frontier.size(), 100);
+    t.checkExpect(frontier.get(99), 99);
   }
 
   // tests endScene
@@ -641,25 +1688,28 @@ class ExamplesFloodIt {
   // tests onTick
   void testOnTick(Tester t) {
     this.initFlood();
-    t.checkExpect(world2.time, 0);
-    t.checkExpect(world2.floodNext.get(0), world2.grid.get(0));
+    t.checkExpect(world2.game.time, 0);
+    t.checkExpect(world2.game.floodNext.get(0), 0);
     this.world2.onTick();
-    t.checkExpect(world2.time, 1);
-    t.checkExpect(world2.floodNext.get(0), world2.grid.get(1));
+    t.checkExpect(world2.game.time, 1);
+    t.checkExpect(world2.game.floodNext.get(0), 1);
     this.initFlood();
-    world2.movesLimit = 0;
+    world2.game.movesLimit = 0;
     this.world2.onTick();
-    t.checkExpect(world2.lost, true);
-    t.checkExpect(world1.won, false);
+    t.checkExpect(world2.game.lost, true);
+    t.checkExpect(world1.game.won, false);
     this.world1.onTick();
-    t.checkExpect(world1.won, true);
+    t.checkExpect(world1.game.won, true);
   }
 
   // creates the FloodItWorld and runs it for manual testing
   void testFloodItWorld(Tester t) {
     this.initFlood();
     FloodItWorld starterWorld = new FloodItWorld(8, 16);
+    starterWorld.usePuzzles(new PuzzlePool(8, 16), PuzzlePool.MEDIUM);
+    starterWorld.game.archive = new RecordArchive(new ByteArrayOutputStream());
+    starterWorld.simulate(.1);
     int sceneSize = 500;
-    starterWorld.bigBang(sceneSize, sceneSize, .1f);
+    starterWorld.bigBang(sceneSize, sceneSize, 1f / 60);
   }
 }
\ No newline at end of file
@@ -0,0 +1,405 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import javalib.worldimages.Posn;
+
+//benchmarks for the hot paths of FloodIt, run the way JMH runs them: every case is set up
+//from a fixed seed, warmed up, then timed over several fixed-length iterations for every
+//board size and color count, and the results are written as JMH style JSON. run with
+//"java FloodItBench [out.json] [sizes] [colors]", where sizes and colors are comma
+//separated lists
+class FloodItBench {
+  static int[] SIZES = { 14, 64, 256, 1024, 2048 };
+  static int[] COLORS = { 3, 6, 8 };
+  static final long SEED = 42;
+  static int WARMUP = 2;
+  static int ITERATIONS = 5;
+  static long ITERATION_MILLIS = 200;
+  // keeps the results of the benchmarked calls alive so they cannot be optimized away
+  static long sink;
+
+  public static void main(String[] args) throws IOException {
+    String out = args.length > 0 ? args[0] : "floodit-bench.json";
+    if (args.length > 1) {
+      SIZES = parseList(args[1]);
+    }
+    if (args.length > 2) {
+      COLORS = parseList(args[2]);
+    }
+    ArrayList<BenchResult> results = new ArrayList<BenchResult>();
+    for (BenchCase bench : cases()) {
+      for (int size : SIZES) {
+        for (int colors : COLORS) {
+          if (bench.accepts(size)) {
+            BenchResult result = measure(bench, size, colors);
+            System.out.println(result);
+            results.add(result);
+          }
+        }
+      }
+    }
+    try (PrintWriter writer = new PrintWriter(out, "UTF-8")) {
+      writer.println(toJson(results));
+    }
+    System.out.println("wrote " + results.size() + " results to " + out);
+  }
+
+  // returns every benchmark case
+  static ArrayList<BenchCase> cases() {
+    return new ArrayList<BenchCase>(Arrays.asList(new GridGenCase(), new ResetCase(false),
+        new ResetCase(true), new FullGameCase(),
+        new CheckWinCase(), new ClickCase(), new SceneCase(), new EngineGameCase("wave", 512),
+        new EngineGameCase("region", 2048), new EngineGameCase("bitboard", 2048),
+        new EngineGameCase("tile", 512), new TileThreadsCase(1), new TileThreadsCase(2),
+        new TileThreadsCase(4), new TileThreadsCase(8), new TileThreadsCase(16),
+        new EngineGameCase("wave", 512, Topology.GRID4, true),
+        new EngineGameCase("region", 2048, Topology.GRID4, true),
+        new EngineGameCase("wave", 512, Topology.GRID8, true),
+        new EngineGameCase("region", 2048, Topology.GRID8, true),
+        new EngineGameCase("wave", 512, Topology.HEX, true),
+        new EngineGameCase("region", 2048, Topology.HEX, true),
+        new EngineGameCase("wave", 512, Topology.TORUS, true),
+        new EngineGameCase("region", 2048, Topology.TORUS, true)));
+  }
+
+  // parses a comma separated list of numbers
+  static int[] parseList(String list) {
+    String[] parts = list.split(",");
+    int[] values = new int[parts.length];
+    for (int k = 0; k < parts.length; k++) {
+      values[k] = Integer.parseInt(parts[k].trim());
+    }
+    return values;
+  }
+
+  // returns the number of bytes the current thread has allocated so far
+  static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  // runs the warmup and measurement iterations of one case at one size and color count.
+  // only bench.run is timed, so per call setup in bench.prepare is left out
+  static BenchResult measure(BenchCase bench, int size, int colors) {
+    bench.setup(size, colors);
+    double[] scores = new double[ITERATIONS];
+    long bytes = 0;
+    long calls = 0;
+    for (int it = -WARMUP; it < ITERATIONS; it++) {
+      long ops = 0;
+      long nanos = 0;
+      long allocated = 0;
+      long end = System.nanoTime() + ITERATION_MILLIS * 1000000;
+      do {
+        bench.prepare();
+        long before = allocatedBytes();
+        long start = System.nanoTime();
+        sink += bench.run();
+        nanos += System.nanoTime() - start;
+        allocated += allocatedBytes() - before;
+        ops += bench.batch();
+      } while (System.nanoTime() < end);
+      if (it >= 0) {
+        scores[it] = (double) nanos / ops;
+        bytes += allocated;
+        calls += ops;
+      }
+    }
+    return new BenchResult(bench.name, size, colors, scores, (double) bytes / calls);
+  }
+
+  // formats the results like the JSON output of JMH
+  static String toJson(ArrayList<BenchResult> results) {
+    StringBuilder json = new StringBuilder("[\n");
+    for (int k = 0; k < results.size(); k++) {
+      json.append(results.get(k).toJson());
+      json.append(k + 1 < results.size() ? ",\n" : "\n");
+    }
+    return json.append("]").toString();
+  }
+}
+
+//benchmarks generating a board, from the same seed every time
+class GridGenCase extends BenchCase {
+  FloodItGame game;
+
+  // constructor
+  GridGenCase() {
+    super("gridGen");
+  }
+
+  // builds a game to regenerate
+  void setup(int size, int colors) {
+    this.game = new FloodItGame(colors, size, new Random(FloodItBench.SEED), null);
+  }
+
+  // rewinds the seed
+  void prepare() {
+    this.game.rand = new Random(FloodItBench.SEED);
+  }
+
+  // generates the board
+  long run() {
+    this.game.gridGen();
+    return this.game.board.color(0);
+  }
+}
+
+//benchmarks resetting a game played with the region engine, which refills the board and
+//the engine's arrays in place. when dealing ahead, the next board is filled before the
+//timed region, as it would be while the player plays the current one
+class ResetCase extends BenchCase {
+  final boolean ahead;
+  FloodItGame game;
+
+  // constructor
+  ResetCase(boolean ahead) {
+    super(ahead ? "reset.ahead" : "reset");
+    this.ahead = ahead;
+  }
+
+  // builds a game to reset, stopping the dealer of the last one
+  void setup(int size, int colors) {
+    if (this.game != null) {
+      this.game.stopDealing();
+    }
+    this.game = new FloodItGame(colors, size, new Random(FloodItBench.SEED), new RegionEngine());
+    if (this.ahead) {
+      this.game.dealAhead();
+    }
+  }
+
+  // waits for the next board when dealing ahead
+  void prepare() {
+    if (this.ahead) {
+      this.game.dealer.awaitReady();
+    }
+  }
+
+  // resets the game
+  long run() {
+    this.game.reset();
+    return this.game.board.color(0);
+  }
+}
+
+//benchmarks playing a whole game with one of the engines, cycling through the colors so
+//that every cycle floods every bordering region. the engine is loaded outside the timed
+//region, so only moves and win checks are timed. boards beyond limit are skipped. boards
+//of any topology but GRID4, or of GRID4 with csr set, find neighbors through an Adjacency,
+//which is named after the topology in the case name
+class EngineGameCase extends BenchCase {
+  final String engineName;
+  final int limit;
+  final Topology topology;
+  final boolean csr;
+  Board board;
+  Board working;
+  FloodEngine engine;
+  int colors;
+
+  // constructor, for GRID4 boards that compute their neighbors
+  EngineGameCase(String engineName, int limit) {
+    this(engineName, limit, Topology.GRID4, false);
+  }
+
+  // constructor
+  EngineGameCase(String engineName, int limit, Topology topology, boolean csr) {
+    this("engineGame." + engineName + (csr ? "." + topology.name : ""), engineName, limit,
+        topology, csr);
+  }
+
+  // constructor, naming the case
+  EngineGameCase(String name, String engineName, int limit, Topology topology,
+      boolean csr) {
+    super(name);
+    this.engineName = engineName;
+    this.limit = limit;
+    this.topology = topology;
+    this.csr = csr;
+  }
+
+  // only plays boards up to limit
+  boolean accepts(int size) {
+    return size <= this.limit;
+  }
+
+  // returns a new engine of the benchmarked kind
+  FloodEngine newEngine() {
+    if (this.engineName.equals("wave")) {
+      return new WaveEngine();
+    }
+    else if (this.engineName.equals("region")) {
+      return new RegionEngine();
+    }
+    else if (this.engineName.equals("tile")) {
+      return new TileFloodEngine();
+    }
+    else {
+      return new BitboardEngine();
+    }
+  }
+
+  // deals the board every game starts from
+  void setup(int size, int colors) {
+    this.colors = colors;
+    this.board = this.csr ? new Board(size, this.topology, this.topology.adjacency(size))
+        : new Board(size);
+    this.board.fill(new Random(FloodItBench.SEED), colors);
+  }
+
+  // loads a fresh copy of the board
+  void prepare() {
+    this.working = this.board.copy();
+    this.engine = this.newEngine();
+    this.engine.load(this.working);
+  }
+
+  // plays until every cell is flooded, returning the number of moves
+  long run() {
+    FloodEngine engine = this.engine;
+    long moves = 0;
+    while (engine.floodedCount() < this.working.cells) {
+      engine.move((engine.color() + 1) % this.colors);
+      moves++;
+    }
+    return moves;
+  }
+}
+
+//benchmarks playing a whole game with the tiled engine on a pool of the given number of
+//threads, in 64 by 64 tiles so even mid-sized boards split into enough tiles to share. the
+//cases for 1 up to 16 threads report how the engine scales with the cores it is given
+class TileThreadsCase extends EngineGameCase {
+  final int threads;
+  ForkJoinPool pool;
+
+  // constructor
+  TileThreadsCase(int threads) {
+    super("engineGame.tile.threads" + threads, "tile", 2048, Topology.GRID4, false);
+    this.threads = threads;
+  }
+
+  // returns a tiled engine on the case's own pool
+  FloodEngine newEngine() {
+    if (this.pool == null) {
+      this.pool = new ForkJoinPool(this.threads);
+    }
+    return new TileFloodEngine(this.pool, 64);
+  }
+}
+
+//benchmarks checking for a win part way through a game
+class CheckWinCase extends BenchCase {
+  static final int BATCH = 1024;
+  FloodItGame game;
+
+  // constructor
+  CheckWinCase() {
+    super("checkWin");
+  }
+
+  // deals a board and plays a few moves on it
+  void setup(int size, int colors) {
+    this.game = new FloodItGame(colors, size, new Random(FloodItBench.SEED), null);
+    for (int c = 0; c < colors; c++) {
+      this.game.play(c);
+    }
+  }
+
+  // checks for a win BATCH times
+  long run() {
+    long wins = 0;
+    for (int k = 0; k < BATCH; k++) {
+      if (this.game.checkWin()) {
+        wins++;
+      }
+    }
+    return wins;
+  }
+
+  // returns BATCH
+  int batch() {
+    return BATCH;
+  }
+}
+
+//benchmarks clicking cells, cycling through a cell of every color on the board
+class ClickCase extends BenchCase {
+  static final int BATCH = 16;
+  FloodItWorld world;
+  ArrayList<Posn> clicks;
+
+  // constructor
+  ClickCase() {
+    super("onMouseClicked");
+  }
+
+  // builds and draws a world, and finds a cell of each color to click where it is drawn:
+  // in the view of boards too big to be drawn cell by cell, on a block of the color when
+  // zoomed out. checks that every click lands on its cell
+  void setup(int size, int colors) {
+    this.world = new FloodItWorld(colors, size, new Random(FloodItBench.SEED));
+    this.world.makeScene();
+    this.clicks = new ArrayList<Posn>();
+    Board board = this.world.game.board;
+    for (int c = 0; c < colors; c++) {
+      int cell = -1;
+      for (int i = 0; i < board.cells && cell < 0; i++) {
+        Posn pos = this.world.screenPosn(i);
+        int shown = this.world.raster == null ? board.color(i)
+            : this.world.raster.colorAt(pos.x, pos.y);
+        if (shown == c && this.world.cellAt(pos) == i) {
+          cell = i;
+        }
+      }
+      if (cell < 0) {
+        throw new IllegalStateException("No cell of color " + c + " is in view");
+      }
+      Posn pos = this.world.screenPosn(cell);
+      if (this.world.cellAt(pos) != cell) {
+        throw new IllegalStateException("The click for cell " + cell + " lands on cell "
+            + this.world.cellAt(pos));
+      }
+      this.clicks.add(pos);
+    }
+  }
+
+  // clicks BATCH times
+  long run() {
+    for (int k = 0; k < BATCH; k++) {
+      this.world.onMouseClicked(this.clicks.get(k % this.clicks.size()));
+    }
+    return this.world.game.movesLimit;
+  }
+
+  // returns BATCH
+  int batch() {
+    return BATCH;
+  }
+}
+
+//benchmarks building a frame of a game in progress
+class SceneCase extends BenchCase {
+  FloodItWorld world;
+
+  // constructor
+  SceneCase() {
+    super("makeScene");
+  }
+
+  // builds a world
+  void setup(int size, int colors) {
+    this.world = new FloodItWorld(colors, size, new Random(FloodItBench.SEED));
+  }
+
+  // ticks the world and builds its scene
+  long run() {
+    this.world.onTick();
+    return System.identityHashCode(this.world.makeScene());
+  }
+}
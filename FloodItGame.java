@@ -0,0 +1,461 @@
+import java.util.Random;
+
+//represents the rules and state of one game of Flood-It, without any drawing, so games
+//can be played headless as well as through FloodItWorld. colors are palette indices into
+//FloodItWorld.randColor
+class FloodItGame {
+  // the colors and flooded state of every cell of the game
+  Board board;
+  int time = 0;
+  int movesLimit;
+  int colorsUsed;
+  int gridSize;
+  // which cells of every board dealt touch each other
+  Topology topology = Topology.GRID4;
+  Random rand;
+  // the palette index the flood is spreading
+  int floodColor;
+  // the cells to be flooded on the next tick
+  Frontier floodNext;
+  // the engine moves are applied with, or null to flood cell by cell on every tick
+  FloodEngine engine;
+  // the wave of the last move applied at once, revealed one layer per tick
+  WaveReplay replay;
+  // the moves applied at once that can be undone and redone. with an engine, every move
+  // is journaled from the cells the engine newly floods
+  MoveJournal journal = new MoveJournal();
+  // true when the engine has moved since the board was last brought up to date. moves
+  // leave the board behind, and whatever reads it, like drawing, saving or a STATE reply,
+  // brings it up to date with refresh first
+  boolean stale;
+  // every move, undo and redo of the game so it can be played again, or null when the
+  // seed of its Random is not known, and where it goes once the game is over, or null
+  GameRecord record;
+  RecordArchive archive;
+  // the pool new boards are taken from and the tier they are taken from, or null to deal
+  // them from rand, and the moves the board was graded at by the pool, or 0
+  PuzzlePool puzzles;
+  int tier;
+  int gradedMoves;
+  // the tier the board being played was graded in, which differs from tier when the pool
+  // had no board of that tier ready in time
+  int dealtTier;
+  // deals the next boards from rand on a background thread, or null to deal them on
+  // reset, and a board it dealt before it was stopped, or null
+  BoardDealer dealer;
+  Board dealtAhead;
+
+  boolean lost;
+  boolean won;
+
+  // constructor
+  FloodItGame(int colorsUsed, int dimens, Random rand, FloodEngine engine) {
+    this(colorsUsed, dimens, rand, engine, Topology.GRID4);
+  }
+
+  // constructor, dealing boards of the given topology
+  FloodItGame(int colorsUsed, int dimens, Random rand, FloodEngine engine,
+      Topology topology) {
+    if (colorsUsed > Board.PALETTE) {
+      throw new IllegalArgumentException("Number of colors exceeds " + Board.PALETTE);
+    }
+    if (engine != null && !engine.supports(topology)) {
+      throw new IllegalArgumentException("The engine cannot flood " + topology + " boards");
+    }
+    this.colorsUsed = colorsUsed;
+    this.gridSize = dimens;
+    this.topology = topology;
+    this.rand = rand;
+    this.engine = engine;
+    this.gridGen();
+    this.floodNext = new Frontier(this.board.cells);
+    this.replay = new WaveReplay(this.board.cells);
+    if (this.engine == null) {
+      this.floodNext.add(0);
+    }
+    this.movesLimit = this.maxMovesGen();
+    this.lost = false;
+    this.won = false;
+  }
+
+  // constructor, dealing the boards from a Random with the given seed and recording the
+  // game
+  FloodItGame(int colorsUsed, int dimens, long seed, FloodEngine engine) {
+    this(colorsUsed, dimens, seed, engine, Topology.GRID4);
+  }
+
+  // constructor, dealing boards of the given topology from a Random with the given seed
+  // and recording the game
+  FloodItGame(int colorsUsed, int dimens, long seed, FloodEngine engine, Topology topology) {
+    this(colorsUsed, dimens, new Random(seed), engine, topology);
+    this.record = new GameRecord(seed, 0, dimens, colorsUsed, topology, this.movesLimit);
+  }
+
+  // constructor, continuing a saved game on the given board, which must be settled. later
+  // boards are dealt from an unseeded Random
+  FloodItGame(Board board, int colorsUsed, int movesLimit, FloodEngine engine) {
+    if (colorsUsed > Board.PALETTE) {
+      throw new IllegalArgumentException("Number of colors exceeds " + Board.PALETTE);
+    }
+    if (engine != null && !engine.supports(board.topology)) {
+      throw new IllegalArgumentException("The engine cannot flood " + board.topology
+          + " boards");
+    }
+    this.colorsUsed = colorsUsed;
+    this.gridSize = board.size;
+    this.topology = board.topology;
+    this.rand = new Random();
+    this.engine = engine;
+    this.board = board;
+    this.boardDealt();
+    this.floodNext = new Frontier(this.board.cells);
+    this.replay = new WaveReplay(this.board.cells);
+    this.movesLimit = movesLimit;
+    this.lost = this.checkLoss();
+    this.won = this.checkWin();
+  }
+
+  // generates a random board for the game: the next one of the dealer when it deals
+  // ahead, or else refilled into the board the game already has when it fits. the game
+  // owns its board, so the board handed to it is refilled too
+  void gridGen() {
+    if (this.dealer != null) {
+      this.board = this.dealer.deal(this.board);
+    }
+    else if (this.dealtAhead != null) {
+      this.board = this.dealtAhead;
+      this.dealtAhead = null;
+    }
+    else {
+      if (this.board == null || this.board.size != this.gridSize
+          || this.board.topology != this.topology) {
+        this.board = new Board(this.gridSize, this.topology);
+      }
+      this.board.fill(this.rand, this.colorsUsed);
+    }
+    this.gradedMoves = 0;
+    this.boardDealt();
+  }
+
+  // deals every new board from then on on a background thread while the current one is
+  // played, in the same order from the same Random
+  void dealAhead() {
+    if (this.dealer == null && this.dealtAhead != null) {
+      // a board dealt before dealing was stopped is dealt first rather than filled again
+      this.dealer = new BoardDealer(null, this.dealtAhead, this.rand, this.colorsUsed);
+      this.dealtAhead = null;
+    }
+    else if (this.dealer == null) {
+      this.dealer = new BoardDealer(new Board(this.gridSize, this.topology), null, this.rand,
+          this.colorsUsed);
+    }
+  }
+
+  // stops dealing boards ahead, keeping the board it dealt to be the next one
+  void stopDealing() {
+    if (this.dealer != null) {
+      this.dealtAhead = this.dealer.close();
+      this.dealer = null;
+    }
+  }
+
+  // starts the engine and the journal on a new board
+  void boardDealt() {
+    if (this.engine != null) {
+      this.engine.load(this.board);
+      this.engine.store();
+      this.stale = false;
+      this.engine.journal(this.journal);
+    }
+    this.journal.clear();
+    this.floodColor = this.board.color(0);
+  }
+
+  // generates the number of max moves: the moves the board was graded at when it came
+  // from a puzzle pool
+  int maxMovesGen() {
+    if (this.gradedMoves > 0) {
+      return this.gradedMoves;
+    }
+    return this.gridSize + this.colorsUsed + 3;
+  }
+
+  // takes every new board from then on from a tier of the given pool
+  void usePuzzles(PuzzlePool puzzles, int tier) {
+    if (puzzles.size != this.gridSize || puzzles.colorsUsed != this.colorsUsed
+        || this.topology != Topology.GRID4) {
+      throw new IllegalArgumentException("The pool deals boards of another game");
+    }
+    this.puzzles = puzzles;
+    this.tier = tier;
+  }
+
+  // starts flooding with the palette color c, unless it is already the flood color.
+  // returns true if this counted as a move
+  boolean move(int c) {
+    if (c == this.floodColor) {
+      return false;
+    }
+    int prev = this.floodColor;
+    this.floodColor = c;
+    if (this.engine == null) {
+      // the wave changes the board over the coming ticks without being journaled
+      this.journal.clear();
+      this.floodNext.add(0);
+    }
+    else {
+      this.engine.move(c);
+      this.journal.record(prev, c);
+      this.stale = true;
+    }
+    this.movesLimit--;
+    this.recordEvent(c);
+    return true;
+  }
+
+  // makes a move and finishes flooding right away, then updates won and lost. returns
+  // true if this counted as a move
+  boolean play(int c) {
+    boolean moved = this.move(c);
+    this.settle();
+    this.won = this.checkWin();
+    this.lost = this.checkLoss();
+    return moved;
+  }
+
+  // applies the move c at once, so the board, won and lost already hold its result, and
+  // records its wave to be revealed over the next ticks. a wave still spreading from
+  // move() is settled and the wave still being revealed is finished first, so moves made
+  // during an animation are applied in order to the final state of the ones before.
+  // engines have no wave to record and just play the move, which move journals. the move
+  // is journaled so it can be undone, and timed while Metrics measures moves. returns true
+  // if this counted as a move
+  boolean applyMove(int c) {
+    MoveEvent event = new MoveEvent();
+    if (!Metrics.measuring(event)) {
+      return this.applyMoveNow(c);
+    }
+    long bytes = Metrics.allocated();
+    int flooded = this.floodedCount();
+    long start = Metrics.now();
+    boolean moved = this.applyMoveNow(c);
+    long end = Metrics.now();
+    Metrics.move(event, end - start, this.floodedCount() - flooded,
+        Metrics.allocated() - bytes);
+    return moved;
+  }
+
+  // applies the move c at once, as applyMove does, without timing it
+  boolean applyMoveNow(int c) {
+    this.settle();
+    this.replay.finish();
+    int prev = this.floodColor;
+    if (this.engine != null) {
+      return this.play(c);
+    }
+    if (c == this.floodColor) {
+      return false;
+    }
+    this.floodColor = c;
+    this.replay.record(this.board, c);
+    // the cells that were not flooded before the move are exactly those that had its color
+    for (int k = 0; k < this.replay.count; k++) {
+      int i = this.replay.order[k];
+      if (this.replay.before[i] == c) {
+        this.journal.add(i);
+      }
+    }
+    this.journal.record(prev, c);
+    this.movesLimit--;
+    this.recordEvent(c);
+    this.won = this.checkWin();
+    this.lost = this.checkLoss();
+    return true;
+  }
+
+  // undoes the last journaled move, returning true if there was one. an engine takes the
+  // move back itself, and the board catches up when it is next read
+  boolean undo() {
+    this.settle();
+    this.replay.finish();
+    if (!this.journal.canUndo()) {
+      return false;
+    }
+    if (this.engine != null) {
+      this.floodColor = this.journal.undo(this.engine);
+      this.stale = true;
+    }
+    else {
+      this.floodColor = this.journal.undo(this.board);
+    }
+    this.movesLimit++;
+    this.recordEvent(GameRecord.UNDO);
+    this.restored();
+    return true;
+  }
+
+  // redoes the last undone move, returning true if there was one
+  boolean redo() {
+    this.settle();
+    this.replay.finish();
+    if (!this.journal.canRedo()) {
+      return false;
+    }
+    if (this.engine != null) {
+      this.floodColor = this.journal.redo(this.engine);
+      this.stale = true;
+    }
+    else {
+      this.floodColor = this.journal.redo(this.board);
+    }
+    this.movesLimit--;
+    this.recordEvent(GameRecord.REDO);
+    this.restored();
+    return true;
+  }
+
+  // records the given move, undo or redo on the current tick, when the game is recorded
+  void recordEvent(int code) {
+    if (this.record != null) {
+      this.record.add(code, this.time);
+    }
+  }
+
+  // brings won and lost up to date with a move undone or redone
+  void restored() {
+    this.won = this.checkWin();
+    this.lost = this.checkLoss();
+  }
+
+  // floods until the frontier is empty
+  void settle() {
+    while (this.floodNext.size() > 0) {
+      this.flood();
+    }
+  }
+
+  // resets the game with a new board, from the puzzle pool when there is one, archiving
+  // the record of the game so far and starting a new one
+  void reset() {
+    this.archiveRecord();
+    Puzzle puzzle = null;
+    if (this.puzzles != null) {
+      puzzle = this.puzzles.take(this.tier, PuzzlePool.WAIT_MILLIS);
+      this.dealtTier = puzzle.tier;
+      this.board = puzzle.board;
+      this.gradedMoves = puzzle.moves;
+      this.boardDealt();
+    }
+    else {
+      this.gridGen();
+    }
+    this.floodNext.clear();
+    this.replay.clear();
+    if (this.engine == null) {
+      this.floodNext.add(0);
+    }
+    this.movesLimit = this.maxMovesGen();
+    this.lost = false;
+    this.won = false;
+    this.time = 0;
+    if (puzzle != null) {
+      this.record = new GameRecord(puzzle.seed, 0, this.gridSize, this.colorsUsed,
+          this.topology, this.movesLimit);
+    }
+    else if (this.record != null) {
+      this.record = this.record.next(this.movesLimit);
+    }
+  }
+
+  // finishes the record with the outcome the game has reached, won, lost or left, and
+  // hands it to the archive, when the game is recorded and archived. called once the game
+  // is over for good, when it is reset or its player stops, as a game can still be undone
+  // past a win or loss until then
+  void archiveRecord() {
+    if (this.record != null && this.archive != null) {
+      this.record.finish(this);
+      this.archive.add(this.record);
+    }
+  }
+
+  // advances the game by one tick, revealing the next layer of the last wave, and times
+  // each phase while Metrics measures ticks
+  void tick() {
+    this.time++;
+    TickEvent event = new TickEvent();
+    if (!Metrics.measuring(event)) {
+      this.replay.advance();
+      if (this.floodNext.size() > 0) {
+        this.flood();
+      }
+      this.lost = this.checkLoss();
+      this.won = this.checkWin();
+      return;
+    }
+    long bytes = Metrics.allocated();
+    int frontier = this.floodNext.size();
+    int flooded = this.floodedCount();
+    long start = Metrics.now();
+    this.replay.advance();
+    long afterReveal = Metrics.now();
+    if (frontier > 0) {
+      this.flood();
+    }
+    long afterFlood = Metrics.now();
+    this.lost = this.checkLoss();
+    long afterLoss = Metrics.now();
+    this.won = this.checkWin();
+    long afterWin = Metrics.now();
+    Metrics.tick(event, start, afterReveal, afterFlood, afterLoss, afterWin, frontier,
+        this.floodedCount() - flooded, Metrics.allocated() - bytes);
+  }
+
+  // checks to see if the game has been lost
+  boolean checkLoss() {
+    return this.movesLimit <= 0;
+  }
+
+  // checks to see if the game has been won
+  boolean checkWin() {
+    if (this.engine != null) {
+      return this.engine.floodedCount() == this.board.cells;
+    }
+    return this.board.allFlooded(this.floodColor);
+  }
+
+  // floods every cell in floodNext and then updates floodNext with the cells that
+  // need to be flooded on the next tick
+  void flood() {
+    this.board.floodStep(this.floodNext, this.floodColor);
+  }
+
+  // returns the palette index of the given cell
+  int colorAt(int i) {
+    return this.engine == null ? this.board.color(i) : this.engine.colorAt(i);
+  }
+
+  // brings the board up to date with the engine, and returns true if anything changed
+  boolean refresh() {
+    if (!this.stale) {
+      return false;
+    }
+    this.engine.store();
+    this.stale = false;
+    return true;
+  }
+
+  // returns the number of flooded cells
+  int floodedCount() {
+    return this.engine == null ? this.board.floodedCount : this.engine.floodedCount();
+  }
+
+  // returns the percentage of the board that is flooded
+  double progress() {
+    return 100.0 * this.floodedCount() / this.board.cells;
+  }
+
+  // returns true if every flooded cell already has the flood color
+  boolean floodSettled() {
+    return this.engine != null || this.board.monochrome(this.floodColor);
+  }
+}
@@ -0,0 +1,667 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntUnaryOperator;
+import javalib.impworld.*;
+import java.awt.Color;
+import javalib.worldimages.*;
+
+//represents FloodItWorld
+class FloodItWorld extends World {
+  // the rules and state of the game being played
+  FloodItGame game;
+  // a Cell view of the board, only kept for boards no bigger than VIEW_LIMIT
+  ArrayList<Cell> grid;
+
+  public static int WHEIGHT = 900;
+  public static int WWIDTH = 600;
+  // the largest board size that still gets a Cell view
+  public static int VIEW_LIMIT = 64;
+  // the largest board size still drawn cell by cell
+  public static int RASTER_LIMIT = 24;
+  // the image boards bigger than RASTER_LIMIT are drawn into, or null. when the game is
+  // simulated, the raster, the layout and the view belong to the thread drawing frames
+  BoardRaster raster;
+  // where the cells are drawn and clicked, and the zoomable part of bigger boards shown
+  BoardLayout layout = new BoardLayout(80, 80, 20);
+  Viewport view = new Viewport(70, 70, 360, 360);
+  // the keys that zoom and pan the view
+  static final List<String> VIEW_KEYS = Arrays.asList("+", "=", "-", "left", "right", "up",
+      "down");
+  // how long a hint may search for, in milliseconds
+  public static long HINT_MILLIS = 50;
+  // suggests moves when h is pressed, and the hint it is working on or showing
+  MoveAdvisor advisor;
+  volatile Advice hint;
+  // the game simulated on a thread of its own, or null to tick it from onTick
+  volatile Simulation simulation;
+  // the clicks and view keys waiting for the next frame, while the game is simulated
+  final ConcurrentLinkedQueue<Runnable> frameInput = new ConcurrentLinkedQueue<Runnable>();
+  // the seq of the last snapshot drawn, or 0 for none
+  long drawnSeq;
+
+  // array list of the colors to be used in the game
+  ArrayList<Color> randColor = new ArrayList<Color>(Arrays.asList(Color.RED, Color.GREEN,
+      Color.BLUE, Color.YELLOW, Color.GRAY, Color.CYAN, Color.ORANGE, Color.PINK));
+
+  // the images that never change, built once and shared by every frame
+  static WorldImage BACKGROUND;
+  static final Color TEXT_COLOR = new Color(135, 206, 235);
+  static final WorldImage TITLE = new TextImage("FLOOD IT!", 50, FontStyle.BOLD, TEXT_COLOR);
+  static final WorldImage HINT = new TextImage("Hint:", 25, FontStyle.BOLD, TEXT_COLOR);
+  // the image of a cell of each palette color
+  ArrayList<WorldImage> cellImages = new ArrayList<WorldImage>();
+  // the moves and time labels, rebuilt only when the values they show change
+  int shownMoves = Integer.MIN_VALUE;
+  WorldImage movesImage;
+  int shownSeconds = Integer.MIN_VALUE;
+  WorldImage timeImage;
+
+  // constructor, recording the game from a random seed
+  FloodItWorld(int colorsUsed, int dimens) {
+    this(colorsUsed, dimens, new Random().nextLong());
+  }
+
+  // constructor, recording the game
+  FloodItWorld(int colorsUsed, int dimens, long seed) {
+    this(new FloodItGame(colorsUsed, dimens, seed, null));
+  }
+
+  // constructor
+  FloodItWorld(int colorsUsed, int dimens, Random rand) {
+    this(colorsUsed, dimens, rand, null);
+  }
+
+  // constructor, applying every move at once with the given engine
+  FloodItWorld(int colorsUsed, int dimens, Random rand, FloodEngine engine) {
+    this(new FloodItGame(colorsUsed, dimens, rand, engine));
+  }
+
+  // constructor, showing the given game
+  FloodItWorld(FloodItGame game) {
+    this.game = game;
+    this.viewGen();
+    for (Color c : this.randColor) {
+      this.cellImages.add(new RectangleImage(20, 20, OutlineMode.SOLID, c));
+    }
+  }
+
+  // returns the background image, reading it from disk the first time
+  static WorldImage background() {
+    if (BACKGROUND == null) {
+      BACKGROUND = new FromFileImage("src/Northeastern_Huskies_logo.png");
+    }
+    return BACKGROUND;
+  }
+
+  // returns the moves remaining label
+  WorldImage movesImage() {
+    return this.movesImage(this.game.movesLimit);
+  }
+
+  // returns the label of the given moves remaining
+  WorldImage movesImage(int moves) {
+    if (this.shownMoves != moves) {
+      this.shownMoves = moves;
+      this.movesImage = new TextImage("Moves Remaining: " + moves, 25, FontStyle.BOLD,
+          TEXT_COLOR);
+    }
+    return this.movesImage;
+  }
+
+  // returns the time spent label
+  WorldImage timeImage() {
+    return this.timeImage(this.game.time);
+  }
+
+  // returns the label of the time spent after the given ticks
+  WorldImage timeImage(int time) {
+    if (this.shownSeconds != time / 10) {
+      this.shownSeconds = time / 10;
+      this.timeImage = new TextImage("Time Spent: " + time / 10 + " seconds", 25,
+          FontStyle.BOLD, TEXT_COLOR);
+    }
+    return this.timeImage;
+  }
+
+  // simulates the game on a thread of its own, ticking every tickSeconds, from now on
+  void simulate(double tickSeconds) {
+    this.drawnSeq = 0;
+    this.simulation = new Simulation(this, (long) (tickSeconds * 1e9));
+    this.simulation.start();
+  }
+
+  // goes back to ticking the game from onTick, handling the clicks and keys still waiting
+  // for a frame on the calling thread
+  void stopSimulating() throws InterruptedException {
+    Simulation running = this.simulation;
+    running.stop();
+    this.simulation = null;
+    this.fitRaster(this.game.gridSize, this.game.topology.staggered);
+    this.runFrameInput();
+  }
+
+  // returns the color the flood is spreading
+  Color floodColor() {
+    return this.randColor.get(this.game.floodColor);
+  }
+
+  // handles a click. when the game is simulated, the next frame finds the clicked cell in
+  // what it draws and hands the click on to the simulation thread
+  public void onMouseClicked(Posn pos) {
+    if (this.simulation != null) {
+      this.frameInput.add(() -> this.clickAt(pos));
+    }
+    else {
+      this.clickAt(pos);
+    }
+  }
+
+  // clicks the cell at the given position, or the color shown there when the view is
+  // zoomed out to blocks, on the simulation thread when there is one
+  void clickAt(Posn pos) {
+    Runnable click;
+    if (this.raster != null && this.view.zoom < 0) {
+      int c = this.raster.colorAt(pos.x, pos.y);
+      click = () -> this.clickColor(c);
+    }
+    else {
+      int i = this.cellAt(pos);
+      click = () -> this.click(i);
+    }
+    Simulation running = this.simulation;
+    if (running != null) {
+      running.post(click);
+    }
+    else {
+      click.run();
+    }
+  }
+
+  // returns the screen position of the center of the given cell, or of the block drawn
+  // for it when the view is zoomed out, which may be out of view
+  Posn screenPosn(int i) {
+    if (this.raster != null) {
+      return new Posn(this.view.screenX(i), this.view.screenY(i));
+    }
+    return new Posn(this.layout.screenX(i, this.game.gridSize),
+        this.layout.screenY(i, this.game.gridSize));
+  }
+
+  // returns the index of the cell drawn at the given position, or -1 if there is none
+  int cellAt(Posn pos) {
+    if (this.raster != null) {
+      return this.view.cellAt(pos.x, pos.y);
+    }
+    return this.layout.cellAt(pos.x, pos.y, this.game.gridSize);
+  }
+
+  // applies the move of the clicked cell's color at once, unless it already has the
+  // flood color, and replays its wave over the next ticks. a click during a wave first
+  // finishes it on screen
+  void click(int i) {
+    if (i >= 0 && i < this.game.board.cells) {
+      this.fastForward();
+      if (this.game.applyMove(this.game.colorAt(i))) {
+        this.clearHint();
+      }
+    }
+  }
+
+  // applies the move of the given palette color as a click on a cell of it does, unless
+  // it is -1
+  void clickColor(int c) {
+    if (c >= 0) {
+      this.fastForward();
+      if (this.game.applyMove(c)) {
+        this.clearHint();
+      }
+    }
+  }
+
+  // finishes the wave spreading and the wave being replayed, Cell view included
+  void fastForward() {
+    while (this.game.floodNext.size() > 0) {
+      this.flood();
+    }
+    WaveReplay replay = this.game.replay;
+    this.showLayers(replay.shown, replay.layers);
+    replay.finish();
+  }
+
+  // updates the Cell view and the raster of the replayed layers from first up to last
+  void showLayers(int first, int last) {
+    WaveReplay replay = this.game.replay;
+    for (int k = replay.layerStart[first]; k < replay.layerStart[last]; k++) {
+      int i = replay.order[k];
+      if (this.grid != null) {
+        this.grid.get(i).color = this.randColor.get(this.game.board.color(i));
+        this.grid.get(i).flooded = true;
+      }
+      this.markDirty(i);
+    }
+  }
+
+  // marks a cell whose shown color may have changed, for the next snapshot when the game
+  // is simulated, or for the next frame to repaint in the raster
+  void markDirty(int i) {
+    if (this.simulation != null) {
+      this.simulation.mark(i);
+    }
+    else if (this.raster != null) {
+      this.raster.mark(i);
+    }
+  }
+
+  // marks every cell, as markDirty does
+  void markAll() {
+    if (this.simulation != null) {
+      this.simulation.invalidate();
+    }
+    else if (this.raster != null) {
+      this.raster.invalidate();
+    }
+  }
+
+  // starts searching for a hint in the background, from the board brought up to date
+  void requestHint() {
+    if (this.advisor == null) {
+      this.advisor = new MoveAdvisor();
+    }
+    this.clearHint();
+    this.refresh();
+    this.hint = this.advisor.advise(this.game, HINT_MILLIS);
+  }
+
+  // drops the current hint, stopping its search
+  void clearHint() {
+    if (this.hint != null) {
+      this.hint.cancel();
+      this.hint = null;
+    }
+  }
+
+  // brings the board and its Cell view up to date with the engine
+  void refresh() {
+    if (this.game.refresh()) {
+      this.syncGrid();
+    }
+  }
+
+  // brings every cell of the Cell view up to date with the board, and marks every cell
+  void syncGrid() {
+    this.markAll();
+    if (this.grid != null) {
+      for (int i = 0; i < this.game.board.cells; i++) {
+        this.grid.get(i).color = this.randColor.get(this.game.board.color(i));
+        this.grid.get(i).flooded = this.game.board.isFlooded(i);
+      }
+    }
+  }
+
+  // undoes the last move, finishing the wave on screen first
+  void undo() {
+    this.fastForward();
+    if (this.game.undo()) {
+      this.clearHint();
+      this.syncGrid();
+    }
+  }
+
+  // redoes the last undone move, finishing the wave on screen first
+  void redo() {
+    this.fastForward();
+    if (this.game.redo()) {
+      this.clearHint();
+      this.syncGrid();
+    }
+  }
+
+  // generates the number of max moves
+  int maxMovesGen() {
+    return this.game.maxMovesGen();
+  }
+
+  // handles a key, on the simulation thread when there is one. keys that move the view
+  // leave the game alone, and are handled by the next frame when the game is simulated
+  public void onKeyEvent(String key) {
+    Simulation running = this.simulation;
+    if (running == null) {
+      if (!this.moveView(key)) {
+        this.press(key);
+      }
+    }
+    else if (VIEW_KEYS.contains(key)) {
+      this.frameInput.add(() -> this.moveView(key));
+    }
+    else {
+      running.post(() -> this.press(key));
+    }
+  }
+
+  // takes in a key and resets the scene if the key is R, asks for a hint if it is H,
+  // undoes a move if it is U and redoes one if it is Y. with a puzzle pool, 1, 2 and 3
+  // reset the scene with an easy, medium or hard board
+  void press(String key) {
+    if (key.equals("r")) {
+      this.reset();
+    }
+    else if (this.game.puzzles != null && key.length() == 1 && key.charAt(0) >= '1'
+        && key.charAt(0) < '1' + PuzzlePool.TIERS) {
+      this.game.tier = key.charAt(0) - '1';
+      this.reset();
+    }
+    else if (key.equals("h")) {
+      this.requestHint();
+    }
+    else if (key.equals("u")) {
+      this.undo();
+    }
+    else if (key.equals("y")) {
+      this.redo();
+    }
+  }
+
+  // zooms the view of a board too big to draw cell by cell in on + or =, out on - and
+  // pans it a quarter of the view with the arrow keys. returns true if it was one of them
+  boolean moveView(String key) {
+    if (this.raster == null) {
+      return false;
+    }
+    else if (key.equals("+") || key.equals("=")) {
+      this.view.zoomBy(1);
+    }
+    else if (key.equals("-")) {
+      this.view.zoomBy(-1);
+    }
+    else if (key.equals("left")) {
+      this.view.panBy(-.25, 0);
+    }
+    else if (key.equals("right")) {
+      this.view.panBy(.25, 0);
+    }
+    else if (key.equals("up")) {
+      this.view.panBy(0, -.25);
+    }
+    else if (key.equals("down")) {
+      this.view.panBy(0, .25);
+    }
+    else {
+      return false;
+    }
+    return true;
+  }
+
+  // deals every new board from a tier of the given pool, starting now
+  void usePuzzles(PuzzlePool puzzles, int tier) {
+    this.game.usePuzzles(puzzles, tier);
+    this.reset();
+  }
+
+  // resets the scene
+  public void reset() {
+    this.clearHint();
+    this.game.reset();
+    this.viewGen();
+  }
+
+  // updates the world on tick, unless the simulation thread ticks it
+  public void onTick() {
+    if (this.simulation == null) {
+      this.step();
+    }
+  }
+
+  // ticks the game
+  void step() {
+    this.syncView();
+    this.game.tick();
+  }
+
+  // checks to see if the game has been lost
+  public boolean checkLoss() {
+    return this.game.checkLoss();
+  }
+
+  // checks to see if the game has been won
+  public boolean checkWin() {
+    return this.game.checkWin();
+  }
+
+  // floods every cell in floodnext and then updates floodnext with the cells that
+  // need to be flooded on the next tick
+  public void flood() {
+    this.syncView();
+    this.game.flood();
+  }
+
+  // updates the Cell view of the cells that are about to be flooded or revealed
+  void syncView() {
+    WaveReplay replay = this.game.replay;
+    if (replay.playing()) {
+      this.showLayers(replay.shown, replay.shown + 1);
+    }
+    if (this.grid != null) {
+      Frontier floodNext = this.game.floodNext;
+      for (int k = 0; k < floodNext.size(); k++) {
+        this.grid.get(floodNext.get(k)).color = this.floodColor();
+        this.grid.get(floodNext.get(k)).flooded = true;
+      }
+    }
+    Frontier floodNext = this.game.floodNext;
+    for (int k = 0; k < floodNext.size(); k++) {
+      this.markDirty(floodNext.get(k));
+    }
+  }
+
+  // creates a scene, timing it while Metrics measures frames
+  public WorldScene makeScene() {
+    FrameEvent event = new FrameEvent();
+    if (!Metrics.measuring(event)) {
+      return this.buildScene();
+    }
+    long bytes = Metrics.allocated();
+    long start = Metrics.now();
+    WorldScene scene = this.buildScene();
+    Metrics.frame(event, Metrics.now() - start, Metrics.allocated() - bytes);
+    return scene;
+  }
+
+  // draws the scene of the game, from the latest snapshot when the game is simulated on
+  // a thread of its own, after handling the clicks and view keys waiting for it
+  WorldScene buildScene() {
+    Simulation running = this.simulation;
+    if (running != null) {
+      this.runFrameInput();
+      Snapshot snapshot = running.acquire();
+      try {
+        byte[] colors = snapshot.colors;
+        IntUnaryOperator colorOf = i -> colors[i];
+        BoardRaster raster = this.showSnapshot(snapshot);
+        if (raster != null) {
+          raster.repaint(colorOf);
+        }
+        return this.drawScene(snapshot.won, snapshot.lost, snapshot.playing,
+            snapshot.movesLimit, snapshot.time, snapshot.size, colorOf, raster);
+      }
+      finally {
+        running.release();
+      }
+    }
+    this.refresh();
+    Board board = this.game.board;
+    WaveReplay replay = this.game.replay;
+    IntUnaryOperator colorOf = i -> replay.shownColor(board, i);
+    if (this.raster != null) {
+      this.raster.repaint(colorOf);
+    }
+    return this.drawScene(this.game.won, this.game.lost, replay.playing(),
+        this.game.movesLimit, this.game.time, board.size, colorOf, this.raster);
+  }
+
+  // runs every click and view key waiting for a frame
+  void runFrameInput() {
+    Runnable event = this.frameInput.poll();
+    while (event != null) {
+      event.run();
+      event = this.frameInput.poll();
+    }
+  }
+
+  // fits the layout and the raster to the board of the given snapshot, and marks the cells
+  // the raster has to look at: the ones the snapshot lists if the last frame drew the
+  // snapshot before it, and every cell if frames missed a snapshot. returns the raster, or
+  // null
+  BoardRaster showSnapshot(Snapshot snapshot) {
+    BoardRaster raster = this.raster;
+    boolean fits = snapshot.size <= RASTER_LIMIT ? raster == null
+        : raster != null && raster.size == snapshot.size;
+    if (!fits || this.layout.staggered != snapshot.staggered) {
+      this.fitRaster(snapshot.size, snapshot.staggered);
+    }
+    else if (raster != null && snapshot.seq != this.drawnSeq) {
+      if (snapshot.seq == this.drawnSeq + 1 && !snapshot.all) {
+        for (int k = 0; k < snapshot.dirtyCount; k++) {
+          raster.mark(snapshot.dirty[k]);
+        }
+      }
+      else {
+        raster.invalidate();
+      }
+    }
+    this.drawnSeq = snapshot.seq;
+    return this.raster;
+  }
+
+  // draws the scene of a game in the given state, with every cell in the palette color
+  // colorOf gives it, or with the given raster when it is not null
+  WorldScene drawScene(boolean won, boolean lost, boolean playing, int moves, int time,
+      int size, IntUnaryOperator colorOf, BoardRaster raster) {
+    if (won && !playing) {
+      return this.endScene("You Win :)");
+    }
+    else if (lost && !playing) {
+      return this.endScene("You Lose :(");
+    }
+    WorldScene gameScene = new WorldScene(900, 600);
+    
+    //enhancing graphics with a background image
+    gameScene.placeImageXY(background(), 250, 300);
+
+    // this will put each cell on the grid, or the raster holding the ones in view
+    if (raster != null && raster.size == size) {
+      gameScene.placeImageXY(raster.image, raster.view.centerX(), raster.view.centerY());
+    }
+    else {
+      for (int i = 0; i < size * size; i++) {
+        gameScene.placeImageXY(this.cellImages.get(colorOf.applyAsInt(i)),
+            this.layout.screenX(i, size), this.layout.screenY(i, size));
+      }
+    }
+
+    // places "FLOOD IT!"
+    gameScene.placeImageXY(TITLE, WWIDTH - 400, 40);
+
+    // tells the user how many moves are left
+    gameScene.placeImageXY(this.movesImage(moves), WWIDTH - 350, 475);
+
+    // time displayed on screen
+    gameScene.placeImageXY(this.timeImage(time), WWIDTH - 350, 450);
+
+    // shows the hinted color once its search is done
+    Advice shown = this.hint;
+    if (shown != null && shown.isDone() && shown.bestColor() >= 0) {
+      gameScene.placeImageXY(HINT, WWIDTH - 350, 500);
+      gameScene.placeImageXY(this.cellImages.get(shown.bestColor()), WWIDTH - 290, 500);
+    }
+
+    return gameScene;
+  }
+
+  // returns the game at the end scene with the supplied message
+  public WorldScene endScene(String message) {
+    WorldScene gameScene = new WorldScene(900, 600);
+    gameScene.placeImageXY(new TextImage(message, 50, FontStyle.BOLD, new Color(0, 0, 0)),
+        WWIDTH / 3, 150);
+    gameScene.placeImageXY(
+        new TextImage("Press r to play again", 24, FontStyle.BOLD, new Color(0, 0, 0)), WWIDTH / 3,
+        200);
+
+    return gameScene;
+  }
+
+  // has the layout draw boards of the given size and stagger, and builds the raster of
+  // the board if it is too big to be drawn cell by cell, or has it look at every cell. a
+  // board of a new size is shown whole, at the highest zoom it fits the view at
+  void fitRaster(int size, boolean staggered) {
+    this.layout.staggered = staggered;
+    this.view.staggered = staggered;
+    if (size <= RASTER_LIMIT) {
+      this.raster = null;
+    }
+    else if (this.raster != null && this.raster.size == size) {
+      this.raster.invalidate();
+    }
+    else {
+      this.raster = new BoardRaster(size, this.view, this.randColor);
+      this.view.fit(size, this.raster.mip.levels);
+    }
+  }
+
+  // builds the Cell view of the board, if it is small enough to have one, and fits the
+  // raster to it, which the next frame does when the game is simulated. the four neighbors
+  // of a Cell only describe GRID4 boards, so the Cells of other topologies are left
+  // unconnected. a new board of the same size keeps the Cells it has, brought up to date
+  // in place
+  void viewGen() {
+    if (this.simulation == null) {
+      this.fitRaster(this.game.gridSize, this.game.topology.staggered);
+    }
+    else {
+      this.simulation.invalidate();
+    }
+    if (this.game.gridSize > VIEW_LIMIT) {
+      this.grid = null;
+      return;
+    }
+    if (this.grid != null && this.grid.size() == this.game.board.cells) {
+      this.syncGrid();
+      return;
+    }
+    this.grid = new ArrayList<Cell>(this.game.board.cells);
+    for (int i = 0; i < this.game.board.cells; i++) {
+      this.grid.add(new Cell(i / this.game.gridSize, i % this.game.gridSize,
+          this.randColor.get(this.game.board.color(i)), this.game.board.isFlooded(i)));
+    }
+    if (this.game.topology != Topology.GRID4) {
+      return;
+    }
+    for (int cellIndex = 0; cellIndex < this.game.board.cells; cellIndex++) {
+      Cell cell = grid.get(cellIndex);
+      int row = cellIndex / this.game.gridSize;
+      int col = cellIndex % this.game.gridSize;
+
+      // connects to left neighbor if not leftmost cell in row
+      if (col > 0) {
+        cell.setLeft(grid.get(cellIndex - 1));
+      }
+
+      // connects to right neighbor if not rightmost cell in row
+      if (col < this.game.gridSize - 1) {
+        cell.setRight(grid.get(cellIndex + 1));
+      }
+
+      // connects to top neighbor if not top row
+      if (row > 0) {
+        cell.setTop(grid.get(cellIndex - this.game.gridSize));
+      }
+
+      // connects to bottom neighbor if not bottom row
+      if (row < this.game.gridSize - 1) {
+        cell.setBottom(grid.get(cellIndex + this.game.gridSize));
+      }
+    }
+  }
+}
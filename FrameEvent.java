@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import jdk.jfr.DataAmount;
+
+//represents one frame built by FloodItWorld.makeScene in a JFR recording
+@Name("floodit.Frame")
+@Label("Flood-It Frame")
+@Category("Flood-It")
+@Description("Building one FloodItWorld scene")
+class FrameEvent extends Event {
+  @Label("Build Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long buildNanos;
+  @Label("Allocated")
+  @DataAmount
+  long allocated;
+}
@@ -0,0 +1,84 @@
+//represents the cells waiting to be flooded as a duplicate-free queue of cell indices
+//backed by a reusable ring buffer. membership is tracked with two bitsets that take
+//turns by tick parity, so each tick can be deduplicated against the cells it has queued
+//for the next one without clearing anything.
+class Frontier {
+  // the queued cell indices, head first
+  int[] queue;
+  int head;
+  int count;
+  // membership of the current and of the next generation, swapped on every tick
+  long[] queued;
+  long[] queuedNext;
+
+  // constructor
+  Frontier(int cells) {
+    this.queue = new int[Math.max(16, Integer.highestOneBit(Math.min(cells, 1 << 16) - 1) << 1)];
+    this.queued = new long[(cells + 63) >>> 6];
+    this.queuedNext = new long[(cells + 63) >>> 6];
+  }
+
+  // returns the number of queued cells
+  int size() {
+    return this.count;
+  }
+
+  // returns the k-th queued cell index
+  int get(int k) {
+    return this.queue[(this.head + k) & (this.queue.length - 1)];
+  }
+
+  // returns true if the given cell is queued
+  boolean contains(int i) {
+    return (this.queued[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // queues the given cell unless it is already queued
+  void add(int i) {
+    if ((this.queued[i >>> 6] & (1L << i)) == 0) {
+      this.queued[i >>> 6] |= 1L << i;
+      this.push(i);
+    }
+  }
+
+  // starts a new generation: cells added from now on are deduplicated against each
+  // other and not against the cells still waiting to be polled
+  void nextGeneration() {
+    long[] temp = this.queued;
+    this.queued = this.queuedNext;
+    this.queuedNext = temp;
+  }
+
+  // removes and returns the oldest cell of the previous generation
+  int poll() {
+    int i = this.queue[this.head];
+    this.head = (this.head + 1) & (this.queue.length - 1);
+    this.count--;
+    this.queuedNext[i >>> 6] &= ~(1L << i);
+    return i;
+  }
+
+  // empties the queue
+  void clear() {
+    while (this.count > 0) {
+      int i = this.queue[this.head];
+      this.head = (this.head + 1) & (this.queue.length - 1);
+      this.count--;
+      this.queued[i >>> 6] &= ~(1L << i);
+    }
+  }
+
+  // appends the given cell to the ring, doubling it when full
+  void push(int i) {
+    if (this.count == this.queue.length) {
+      int[] bigger = new int[this.queue.length << 1];
+      for (int k = 0; k < this.count; k++) {
+        bigger[k] = this.get(k);
+      }
+      this.queue = bigger;
+      this.head = 0;
+    }
+    this.queue[(this.head + this.count) & (this.queue.length - 1)] = i;
+    this.count++;
+  }
+}
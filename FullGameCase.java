@@ -0,0 +1,49 @@
+import java.util.Random;
+
+//benchmarks playing a whole game on the wave engine, one flood per tick, always picking
+//the color of the first unflooded cell. that cell always borders the flood, so every move
+//floods at least one cell. a game takes a move per region, so only boards up to LIMIT
+//are played
+class FullGameCase extends BenchCase {
+  static final int LIMIT = 256;
+  int size;
+  int colors;
+  FloodItGame game;
+
+  // constructor
+  FullGameCase() {
+    super("fullGame");
+  }
+
+  // only plays boards up to LIMIT
+  boolean accepts(int size) {
+    return size <= LIMIT;
+  }
+
+  // remembers the size and color count
+  void setup(int size, int colors) {
+    this.size = size;
+    this.colors = colors;
+  }
+
+  // deals a fresh board
+  void prepare() {
+    this.game = new FloodItGame(this.colors, this.size, new Random(FloodItBench.SEED), null);
+  }
+
+  // plays until the game is won
+  long run() {
+    FloodItGame game = this.game;
+    int next = 0;
+    while (!game.won) {
+      while (game.board.isFlooded(next)) {
+        next++;
+      }
+      game.move(game.board.color(next));
+      while (game.floodNext.size() > 0) {
+        game.tick();
+      }
+    }
+    return game.time;
+  }
+}
@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+
+//represents everything needed to play a game again: the seed of its Random, the number of
+//boards dealt from it before this one, its size, colors, topology and move limit, and
+//every move, undo and redo with the tick it happened on, followed by the outcome it
+//reached. records are stored as varints, so a game takes a few bytes plus about two per
+//move, and records written one after another can be read back one at a time
+class GameRecord {
+  // the first bytes of every record, and the version of the format after them
+  static final int MAGIC_F = 'F';
+  static final int MAGIC_R = 'R';
+  static final int VERSION = 1;
+  // the event codes past the palette colors
+  static final int UNDO = Board.PALETTE;
+  static final int REDO = Board.PALETTE + 1;
+
+  final long seed;
+  final int round;
+  final int size;
+  final int colors;
+  final Topology topology;
+  // the moves the game started with
+  final int limit;
+  // every event as the ticks since the one before followed by its code
+  final VarintBuffer events = new VarintBuffer();
+  int eventCount;
+  int lastTime;
+  // the outcome, once finished
+  boolean finished;
+  boolean won;
+  boolean lost;
+  int movesLimit;
+  int floodedCount;
+  long checksum;
+
+  // constructor
+  GameRecord(long seed, int round, int size, int colors, Topology topology, int limit) {
+    this.seed = seed;
+    this.round = round;
+    this.size = size;
+    this.colors = colors;
+    this.topology = topology;
+    this.limit = limit;
+  }
+
+  // returns the record of the next board dealt from the same seed, starting with the given
+  // move limit
+  GameRecord next(int limit) {
+    return new GameRecord(this.seed, this.round + 1, this.size, this.colors, this.topology,
+        limit);
+  }
+
+  // records a move to the given palette color, or an UNDO or REDO, on the given tick
+  void add(int code, int time) {
+    this.events.writeVarint(Math.max(0, time - this.lastTime));
+    this.events.write(code);
+    this.lastTime = Math.max(this.lastTime, time);
+    this.eventCount++;
+  }
+
+  // records the outcome the game has reached, settling its wave first
+  void finish(FloodItGame game) {
+    game.settle();
+    this.finished = true;
+    this.won = game.won;
+    this.lost = game.lost;
+    this.movesLimit = game.movesLimit;
+    this.floodedCount = game.floodedCount();
+    this.checksum = checksum(game);
+  }
+
+  // returns true if the game has reached the recorded outcome
+  boolean matches(FloodItGame game) {
+    return this.finished && this.won == game.won && this.lost == game.lost
+        && this.movesLimit == game.movesLimit && this.floodedCount == game.floodedCount()
+        && this.checksum == checksum(game);
+  }
+
+  // returns a hash of the color of every cell of the game
+  static long checksum(FloodItGame game) {
+    long hash = 0xCBF29CE484222325L;
+    for (int i = 0; i < game.board.cells; i++) {
+      hash = (hash ^ game.colorAt(i)) * 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  // appends the record to the buffer
+  void write(VarintBuffer out) {
+    out.write(MAGIC_F);
+    out.write(MAGIC_R);
+    out.write(VERSION);
+    out.writeSigned(this.seed);
+    out.writeVarint(this.round);
+    out.writeVarint(this.size);
+    out.write(this.colors);
+    out.write(this.topology.id);
+    out.writeVarint(this.limit);
+    out.writeVarint(this.eventCount);
+    out.writeVarint(this.events.length);
+    for (int k = 0; k < this.events.length; k++) {
+      out.write(this.events.bytes[k]);
+    }
+    out.write((this.finished ? 1 : 0) | (this.won ? 2 : 0) | (this.lost ? 4 : 0));
+    if (this.finished) {
+      out.writeSigned(this.movesLimit);
+      out.writeVarint(this.floodedCount);
+      out.writeUnsigned(this.checksum);
+    }
+  }
+
+  // returns the record as bytes
+  byte[] toByteArray() {
+    VarintBuffer out = new VarintBuffer();
+    this.write(out);
+    return out.toByteArray();
+  }
+
+  // reads the record starting at the buffer's position
+  static GameRecord read(VarintBuffer in) {
+    if (in.read() != MAGIC_F || in.read() != MAGIC_R) {
+      throw new IllegalArgumentException("Not a game record");
+    }
+    if (in.read() != VERSION) {
+      throw new IllegalArgumentException("Unknown game record version");
+    }
+    long seed = in.readSigned();
+    int round = (int) in.readVarint();
+    int size = (int) in.readVarint();
+    int colors = in.read();
+    Topology topology = Topology.withId(in.read());
+    int limit = (int) in.readVarint();
+    GameRecord record = new GameRecord(seed, round, size, colors, topology, limit);
+    record.eventCount = (int) in.readVarint();
+    int length = (int) in.readVarint();
+    for (int k = 0; k < length; k++) {
+      record.events.write(in.read());
+    }
+    int flags = in.read();
+    record.finished = (flags & 1) != 0;
+    record.won = (flags & 2) != 0;
+    record.lost = (flags & 4) != 0;
+    if (record.finished) {
+      record.movesLimit = (int) in.readSigned();
+      record.floodedCount = (int) in.readVarint();
+      record.checksum = in.readVarint();
+    }
+    return record;
+  }
+
+  // reads every record in the given bytes
+  static ArrayList<GameRecord> readAll(byte[] bytes) {
+    VarintBuffer in = new VarintBuffer(bytes, bytes.length);
+    ArrayList<GameRecord> records = new ArrayList<GameRecord>();
+    while (!in.atEnd()) {
+      records.add(read(in));
+    }
+    return records;
+  }
+}
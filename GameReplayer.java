@@ -0,0 +1,76 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+
+//replays game records headless, as fast as the engine allows, and checks that they reach
+//their recorded outcome. run with "java GameReplayer file [wave|region|bitboard|tile]" to
+//verify every record in a file of records written one after another
+class GameReplayer {
+  public static void main(String[] args) throws IOException {
+    ArrayList<GameRecord> records = GameRecord.readAll(Files.readAllBytes(Paths.get(args[0])));
+    String engineName = args.length > 1 ? args[1] : "region";
+    long start = System.nanoTime();
+    int verified = 0;
+    long moves = 0;
+    for (GameRecord record : records) {
+      if (verify(record, engine(engineName))) {
+        verified++;
+      }
+      else {
+        System.out.println("mismatch: seed " + record.seed + " round " + record.round);
+      }
+      moves += record.eventCount;
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("verified %d of %d games (%d events) in %.3f s, %.0f games/s%n", verified,
+        records.size(), moves, seconds, records.size() / seconds);
+  }
+
+  // returns the engine of the given name, or null to replay cell by cell
+  static FloodEngine engine(String name) {
+    if (name.equals("wave")) {
+      return null;
+    }
+    else if (name.equals("bitboard")) {
+      return new BitboardEngine();
+    }
+    else if (name.equals("tile")) {
+      return new TileFloodEngine();
+    }
+    else {
+      return new RegionEngine();
+    }
+  }
+
+  // plays the recorded game again with the given engine and returns it
+  static FloodItGame replay(GameRecord record, FloodEngine engine) {
+    FloodItGame game = new FloodItGame(record.colors, record.size, new Random(record.seed),
+        engine, record.topology);
+    for (int r = 0; r < record.round; r++) {
+      game.reset();
+    }
+    game.movesLimit = record.limit;
+    VarintBuffer events = new VarintBuffer(record.events.bytes, record.events.length);
+    for (int k = 0; k < record.eventCount; k++) {
+      game.time += (int) events.readVarint();
+      int code = events.read();
+      if (code == GameRecord.UNDO) {
+        game.undo();
+      }
+      else if (code == GameRecord.REDO) {
+        game.redo();
+      }
+      else {
+        game.applyMove(code);
+      }
+    }
+    return game;
+  }
+
+  // returns true if the recorded game reaches its recorded outcome with the given engine
+  static boolean verify(GameRecord record, FloodEngine engine) {
+    return record.matches(replay(record, engine));
+  }
+}
@@ -0,0 +1,159 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//represents a local TCP server hosting many headless games at once. every connection is a
+//session owning one FloodItGame, served on a thread of its own: a virtual thread when the
+//JDK has them, or else a small-stacked platform thread. sessions speak a line protocol,
+//one command per line and one reply line per command:
+//  NEW size colors [seed]  ->  OK seed floodColor movesLeft
+//  MOVE color              ->  OK moved floodColor movesLeft floodedCount status
+//  STATE                   ->  STATE size floodColor movesLeft status colors
+//  DIFF                    ->  DIFF floodColor movesLeft status start+length ...
+//  RESET                   ->  OK seed round floodColor movesLeft
+//  QUIT                    ->  BYE
+//where colors has a digit per cell in index order, status is PLAYING, WON or LOST, round
+//is the number of boards dealt from the seed before the new one, and
+//the runs of a DIFF are the cells flooded since the last STATE or DIFF. every flooded cell
+//has the flood color, so a client that applies the runs and recolors its flooded cells is
+//back in sync. a command that cannot be run gets ERR and a reason. the record of every
+//game a session plays is archived when the game is reset or replaced, or the session
+//ends. run with "java GameServer [port] [archive]" to append the records to the file
+//archive
+class GameServer implements AutoCloseable {
+  // the largest board a session may ask for
+  static final int MAX_SIZE = 1024;
+  // the stack size of the platform threads sessions fall back on
+  static final long FALLBACK_STACK = 256 * 1024;
+
+  final ServerSocket socket;
+  final ExecutorService sessions;
+  final Thread acceptor;
+  // the sessions open right now, and the most ever open at once
+  final AtomicInteger open = new AtomicInteger();
+  final AtomicInteger peak = new AtomicInteger();
+  // where the sessions archive the records of their games, or null
+  final RecordArchive archive;
+
+  // constructor, listening on the given port of the loopback address, or any free port
+  // when it is 0
+  GameServer(int port) throws IOException {
+    this(port, null);
+  }
+
+  // constructor, archiving the records of every session's games in the given archive
+  GameServer(int port, RecordArchive archive) throws IOException {
+    this.archive = archive;
+    this.socket = new ServerSocket(port, 16384, InetAddress.getLoopbackAddress());
+    this.sessions = sessionExecutor("game-session-");
+    this.acceptor = new Thread(this::accept, "game-server");
+    this.acceptor.setDaemon(true);
+    this.acceptor.start();
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : 7070,
+        args.length > 1 ? new RecordArchive(Paths.get(args[1])) : null);
+    System.out.println("serving games on port " + server.port() + " with "
+        + (virtualThreads() ? "virtual" : "platform") + " threads");
+    server.acceptor.join();
+  }
+
+  // returns true if the JDK starts virtual threads
+  static boolean virtualThreads() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    }
+    catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  // returns an executor starting a thread per task: a virtual thread when the JDK has them,
+  // which is looked up reflectively so the server still builds on JDKs without them, and
+  // otherwise a daemon platform thread with a small stack named with the given prefix
+  static ExecutorService sessionExecutor(String prefix) {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      return Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(null, r, prefix + count.incrementAndGet(), FALLBACK_STACK);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  // returns the port the server listens on
+  int port() {
+    return this.socket.getLocalPort();
+  }
+
+  // hands every connection to a session of its own until the server is closed
+  void accept() {
+    while (!this.socket.isClosed()) {
+      try {
+        Socket client = this.socket.accept();
+        client.setTcpNoDelay(true);
+        this.peak.accumulateAndGet(this.open.incrementAndGet(), Math::max);
+        this.sessions.execute(() -> this.serve(client));
+      }
+      catch (IOException e) {
+        // closed while accepting, or out of file descriptors until a session ends
+        if (!this.socket.isClosed()) {
+          System.err.println("game server: " + e.getMessage());
+          LockSupport.parkNanos(10_000_000L);
+        }
+      }
+    }
+  }
+
+  // runs the session of the given connection until the client quits or goes away
+  void serve(Socket client) {
+    GameSession session = new GameSession(this.archive);
+    try (Socket s = client;
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new BufferedWriter(
+            new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+      String line = in.readLine();
+      while (line != null) {
+        String reply = session.handle(line);
+        out.write(reply);
+        out.write('\n');
+        out.flush();
+        line = reply.equals("BYE") ? null : in.readLine();
+      }
+    }
+    catch (IOException e) {
+      // the client went away
+      return;
+    }
+    finally {
+      session.close();
+      this.open.decrementAndGet();
+    }
+  }
+
+  // stops accepting connections and ends every session
+  public void close() throws IOException {
+    this.socket.close();
+    this.sessions.shutdownNow();
+  }
+}
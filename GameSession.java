@@ -0,0 +1,138 @@
+import java.util.Random;
+
+//represents the game of one connection to a GameServer and the commands it understands
+class GameSession {
+  FloodItGame game;
+  // the flooded cells as of the last STATE or DIFF
+  long[] sent;
+  // where the records of the session's games go, or null
+  final RecordArchive archive;
+
+  // constructor, without archiving games
+  GameSession() {
+    this(null);
+  }
+
+  // constructor, archiving every game in the given archive
+  GameSession(RecordArchive archive) {
+    this.archive = archive;
+  }
+
+  // archives the game being played, which is then over
+  void close() {
+    if (this.game != null) {
+      this.game.archiveRecord();
+      this.game = null;
+    }
+  }
+
+  // runs one command line and returns the reply line
+  String handle(String line) {
+    String[] words = line.trim().split("\\s+");
+    try {
+      if (words[0].equals("NEW")) {
+        int size = Integer.parseInt(words[1]);
+        int colors = Integer.parseInt(words[2]);
+        long seed = words.length > 3 ? Long.parseLong(words[3]) : new Random().nextLong();
+        if (size > GameServer.MAX_SIZE || colors < 2) {
+          return "ERR boards are at most " + GameServer.MAX_SIZE + " cells wide with at least "
+              + "2 colors";
+        }
+        this.close();
+        this.game = new FloodItGame(colors, size, seed, new RegionEngine());
+        this.game.archive = this.archive;
+        this.sent = this.game.board.flooded.clone();
+        return "OK " + seed + " " + this.game.floodColor + " " + this.game.movesLimit;
+      }
+      else if (words[0].equals("QUIT")) {
+        this.close();
+        return "BYE";
+      }
+      else if (this.game == null) {
+        return "ERR no game, send NEW first";
+      }
+      else if (words[0].equals("MOVE")) {
+        int c = Integer.parseInt(words[1]);
+        if (c < 0 || c >= this.game.colorsUsed) {
+          return "ERR colors are 0 to " + (this.game.colorsUsed - 1);
+        }
+        boolean moved = this.game.applyMove(c);
+        return "OK " + (moved ? 1 : 0) + " " + this.game.floodColor + " "
+            + this.game.movesLimit + " " + this.game.floodedCount() + " " + this.status();
+      }
+      else if (words[0].equals("STATE")) {
+        return this.state();
+      }
+      else if (words[0].equals("DIFF")) {
+        return this.diff();
+      }
+      else if (words[0].equals("RESET")) {
+        this.game.reset();
+        this.sent = this.game.board.flooded.clone();
+        return "OK " + this.game.record.seed + " " + this.game.record.round + " "
+            + this.game.floodColor + " " + this.game.movesLimit;
+      }
+      else {
+        return "ERR unknown command " + words[0];
+      }
+    }
+    catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      return "ERR bad arguments to " + words[0];
+    }
+  }
+
+  // returns the status of the game
+  String status() {
+    return this.game.won ? "WON" : this.game.lost ? "LOST" : "PLAYING";
+  }
+
+  // returns the whole board and remembers it as sent
+  String state() {
+    this.game.refresh();
+    Board board = this.game.board;
+    StringBuilder reply = new StringBuilder(board.cells + 32);
+    reply.append("STATE ").append(board.size).append(' ').append(this.game.floodColor)
+        .append(' ').append(this.game.movesLimit).append(' ').append(this.status())
+        .append(' ');
+    for (int i = 0; i < board.cells; i++) {
+      reply.append((char) ('0' + board.colors[i]));
+    }
+    System.arraycopy(board.flooded, 0, this.sent, 0, this.sent.length);
+    return reply.toString();
+  }
+
+  // returns the runs of cells flooded since the board was last sent and remembers it as
+  // sent
+  String diff() {
+    this.game.refresh();
+    long[] flooded = this.game.board.flooded;
+    StringBuilder reply = new StringBuilder("DIFF ");
+    reply.append(this.game.floodColor).append(' ').append(this.game.movesLimit).append(' ')
+        .append(this.status());
+    int start = -1;
+    int length = 0;
+    for (int w = 0; w < flooded.length; w++) {
+      long bits = flooded[w] & ~this.sent[w];
+      this.sent[w] = flooded[w];
+      while (bits != 0) {
+        int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        if (i != start + length) {
+          appendRun(reply, start, length);
+          start = i;
+          length = 0;
+        }
+        length++;
+      }
+    }
+    appendRun(reply, start, length);
+    return reply.toString();
+  }
+
+  // appends the run of the given length from start, if it is not empty
+  static void appendRun(StringBuilder reply, int start, int length) {
+    if (length > 0) {
+      reply.append(' ').append(start).append('+').append(length);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+import java.util.Random;
+
+//represents a policy that plays the color flooding the most cells right away. only
+//works on games played with a RegionEngine
+class GreedyPolicy implements MovePolicy {
+  // returns the palette color with the largest gain, breaking ties by lowest index
+  public int choose(FloodItGame game, Random rand) {
+    if (!(game.engine instanceof RegionEngine)) {
+      throw new IllegalArgumentException("GreedyPolicy needs a game with a RegionEngine");
+    }
+    RegionEngine regions = (RegionEngine) game.engine;
+    int best = -1;
+    int bestGain = -1;
+    for (int c = 0; c < game.colorsUsed; c++) {
+      int gain = regions.gain(c);
+      if (c != game.floodColor && gain > bestGain) {
+        best = c;
+        bestGain = gain;
+      }
+    }
+    return best;
+  }
+}
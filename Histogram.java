@@ -0,0 +1,75 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//represents a histogram of non-negative values in power of two buckets: bucket b counts
+//the values whose highest set bit is bit b - 1, and bucket 0 counts zeros
+class Histogram {
+  final AtomicLongArray buckets;
+  // the number of values, their sum and the largest one, in the last three slots
+  static final int COUNT = 65;
+  static final int SUM = 66;
+  static final int MAX = 67;
+
+  // constructor
+  Histogram() {
+    this.buckets = new AtomicLongArray(68);
+  }
+
+  // constructor, copying the given histogram
+  Histogram(Histogram that) {
+    this.buckets = new AtomicLongArray(68);
+    for (int b = 0; b < 68; b++) {
+      this.buckets.set(b, that.buckets.get(b));
+    }
+  }
+
+  // records a value
+  void record(long value) {
+    long v = Math.max(0, value);
+    this.buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+    this.buckets.incrementAndGet(COUNT);
+    this.buckets.addAndGet(SUM, v);
+    this.buckets.accumulateAndGet(MAX, v, Math::max);
+  }
+
+  // returns the number of values recorded
+  long count() {
+    return this.buckets.get(COUNT);
+  }
+
+  // returns the mean of the values recorded
+  double mean() {
+    return this.count() == 0 ? 0 : (double) this.buckets.get(SUM) / this.count();
+  }
+
+  // returns the largest value recorded
+  long max() {
+    return this.buckets.get(MAX);
+  }
+
+  // returns an upper bound on the given fraction of the values: the top of the bucket
+  // holding that value
+  long percentile(double p) {
+    long seen = 0;
+    long wanted = (long) Math.ceil(p * this.count());
+    for (int b = 0; b < 65; b++) {
+      seen += this.buckets.get(b);
+      if (seen >= wanted && seen > 0) {
+        return b == 0 ? 0 : Math.min(this.max(), b == 64 ? Long.MAX_VALUE : (1L << b) - 1);
+      }
+    }
+    return 0;
+  }
+
+  // forgets every value
+  void reset() {
+    for (int b = 0; b < 68; b++) {
+      this.buckets.set(b, 0);
+    }
+  }
+
+  // describes the histogram in one line
+  public String toString() {
+    return String.format("n=%d mean=%.1f p50<=%d p99<=%d max=%d", this.count(), this.mean(),
+        this.percentile(0.5), this.percentile(0.99), this.max());
+  }
+}
@@ -0,0 +1,114 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//opens many sessions on a GameServer at once, each from a thread of its own, and once all
+//of them are open plays moves on every one of them, timing each round trip. run with
+//"java LoadGenerator [sessions] [moves] [size] [colors] [port]", which starts a server of
+//its own unless given a port
+class LoadGenerator {
+  // how long a client waits for a reply before giving up on its session, in milliseconds
+  static final int READ_TIMEOUT = 60_000;
+
+  public static void main(String[] args) throws Exception {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+    int moves = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    int size = args.length > 2 ? Integer.parseInt(args[2]) : 14;
+    int colors = args.length > 3 ? Integer.parseInt(args[3]) : 6;
+    GameServer server = args.length > 4 ? null : new GameServer(0);
+    int port = server == null ? Integer.parseInt(args[4]) : server.port();
+    LoadResult result = run(port, sessions, moves, size, colors);
+    System.out.println(result);
+    if (server != null) {
+      System.out.println("peak open sessions on the server: " + server.peak.get());
+      server.close();
+    }
+  }
+
+  // opens the given number of sessions on the server at the port, and once they are all
+  // open plays the given number of moves on each
+  static LoadResult run(int port, int sessions, int moves, int size, int colors)
+      throws InterruptedException {
+    long[][] latencies = new long[sessions][];
+    CountDownLatch opened = new CountDownLatch(sessions);
+    CountDownLatch done = new CountDownLatch(sessions);
+    AtomicInteger failed = new AtomicInteger();
+    ExecutorService clients = GameServer.sessionExecutor("load-client-");
+    long start = System.nanoTime();
+    for (int s = 0; s < sessions; s++) {
+      int session = s;
+      clients.execute(() -> {
+        try {
+          latencies[session] = play(port, session, moves, size, colors, opened);
+        }
+        catch (IOException | InterruptedException e) {
+          failed.incrementAndGet();
+        }
+        finally {
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    clients.shutdown();
+    clients.awaitTermination(1, TimeUnit.SECONDS);
+    return new LoadResult(sessions, failed.get(), latencies, seconds);
+  }
+
+  // plays one session: connects, starts a game seeded with the session number, waits for
+  // every other session to be open, then plays the moves and returns their latencies
+  static long[] play(int port, int session, int moves, int size, int colors,
+      CountDownLatch opened) throws IOException, InterruptedException {
+    boolean counted = false;
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new BufferedWriter(
+            new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+      socket.setTcpNoDelay(true);
+      socket.setSoTimeout(READ_TIMEOUT);
+      String[] reply = send(in, out, "NEW " + size + " " + colors + " " + session);
+      opened.countDown();
+      counted = true;
+      opened.await();
+      int floodColor = Integer.parseInt(reply[2]);
+      long[] latencies = new long[moves];
+      for (int m = 0; m < moves; m++) {
+        long t0 = System.nanoTime();
+        reply = send(in, out, "MOVE " + (floodColor + 1 + m % (colors - 1)) % colors);
+        latencies[m] = System.nanoTime() - t0;
+        floodColor = Integer.parseInt(reply[2]);
+      }
+      send(in, out, "QUIT");
+      return latencies;
+    }
+    finally {
+      if (!counted) {
+        opened.countDown();
+      }
+    }
+  }
+
+  // sends a command and returns the words of the reply
+  static String[] send(BufferedReader in, Writer out, String command) throws IOException {
+    out.write(command);
+    out.write('\n');
+    out.flush();
+    String reply = in.readLine();
+    if (reply == null || reply.startsWith("ERR")) {
+      throw new IOException("Server replied " + reply + " to " + command);
+    }
+    return reply.split(" ");
+  }
+}
@@ -0,0 +1,47 @@
+import java.util.Arrays;
+
+//represents the round trip times of the moves of a LoadGenerator run
+class LoadResult {
+  final int sessions;
+  final int failed;
+  // every latency in nanoseconds, sorted
+  final long[] latencies;
+  final double seconds;
+
+  // constructor
+  LoadResult(int sessions, int failed, long[][] latencies, double seconds) {
+    this.sessions = sessions;
+    this.failed = failed;
+    int count = 0;
+    for (long[] l : latencies) {
+      count += l == null ? 0 : l.length;
+    }
+    this.latencies = new long[count];
+    int k = 0;
+    for (long[] l : latencies) {
+      if (l != null) {
+        System.arraycopy(l, 0, this.latencies, k, l.length);
+        k += l.length;
+      }
+    }
+    Arrays.sort(this.latencies);
+    this.seconds = seconds;
+  }
+
+  // returns the smallest latency at least the fraction p of the moves stayed within
+  long percentile(double p) {
+    if (this.latencies.length == 0) {
+      return 0;
+    }
+    int k = (int) Math.ceil(p * this.latencies.length) - 1;
+    return this.latencies[Math.max(0, k)];
+  }
+
+  // returns a summary of the run
+  public String toString() {
+    return String.format("%d sessions (%d failed), %d moves in %.2f s, %.0f moves/s, "
+        + "move latency p50 %.3f ms p99 %.3f ms max %.3f ms", this.sessions, this.failed,
+        this.latencies.length, this.seconds, this.latencies.length / this.seconds,
+        this.percentile(0.5) / 1e6, this.percentile(0.99) / 1e6, this.percentile(1) / 1e6);
+  }
+}
@@ -0,0 +1,116 @@
+import java.lang.management.ManagementFactory;
+import jdk.jfr.Event;
+
+//represents the built-in instrumentation of the game: latency and size histograms for
+//every move, every phase of a tick and every frame, kept in process while enabled, and
+//JFR events emitted whenever a recording asks for them, enabled or not. while neither
+//measures, every probe is a volatile read and a check of its event
+class Metrics {
+  // true while measurements are being recorded
+  static volatile boolean enabled;
+
+  // how long flooding a move, each phase of a tick and a frame take, in nanoseconds. a
+  // move applied at once floods in full, and a tick only floods the wave of a move left
+  // to spread tick by tick, while it reveals the next layer of the wave applied at once
+  static final Histogram FLOOD_NANOS = new Histogram();
+  static final Histogram REVEAL_NANOS = new Histogram();
+  static final Histogram LOSS_NANOS = new Histogram();
+  static final Histogram WIN_NANOS = new Histogram();
+  static final Histogram FRAME_NANOS = new Histogram();
+  // how many cells a move or a tick that floods newly floods, and how many cells were
+  // waiting in the frontier of every tick
+  static final Histogram CELLS_FLOODED = new Histogram();
+  static final Histogram FRONTIER = new Histogram();
+  // how many bytes a move, a tick and a frame allocate
+  static final Histogram MOVE_BYTES = new Histogram();
+  static final Histogram TICK_BYTES = new Histogram();
+  static final Histogram FRAME_BYTES = new Histogram();
+
+  static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  // returns true if the histograms are recorded or a JFR recording asks for the event
+  static boolean measuring(Event event) {
+    return enabled || event.isEnabled();
+  }
+
+  // returns the current time in nanoseconds
+  static long now() {
+    return System.nanoTime();
+  }
+
+  // returns the bytes the current thread has allocated so far
+  static long allocated() {
+    return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  // records one move applied at once, which took the given time and allocation to flood
+  // the given number of cells
+  static void move(MoveEvent event, long nanos, int cellsFlooded, long bytes) {
+    if (enabled) {
+      FLOOD_NANOS.record(nanos);
+      CELLS_FLOODED.record(cellsFlooded);
+      MOVE_BYTES.record(bytes);
+    }
+    if (event.shouldCommit()) {
+      event.floodNanos = nanos;
+      event.cellsFlooded = cellsFlooded;
+      event.allocated = bytes;
+      event.commit();
+    }
+  }
+
+  // records one tick that started at start, finished revealing at revealed, flooding at
+  // flooded, checking for a loss at lost and checking for a win at won. the flood is only
+  // recorded when the frontier had cells to flood
+  static void tick(TickEvent event, long start, long revealed, long flooded, long lost,
+      long won, int frontier, int cellsFlooded, long bytes) {
+    if (enabled) {
+      REVEAL_NANOS.record(revealed - start);
+      if (frontier > 0) {
+        FLOOD_NANOS.record(flooded - revealed);
+        CELLS_FLOODED.record(cellsFlooded);
+      }
+      LOSS_NANOS.record(lost - flooded);
+      WIN_NANOS.record(won - lost);
+      FRONTIER.record(frontier);
+      TICK_BYTES.record(bytes);
+    }
+    if (event.shouldCommit()) {
+      event.revealNanos = revealed - start;
+      event.floodNanos = flooded - revealed;
+      event.lossNanos = lost - flooded;
+      event.winNanos = won - lost;
+      event.frontier = frontier;
+      event.cellsFlooded = cellsFlooded;
+      event.allocated = bytes;
+      event.commit();
+    }
+  }
+
+  // records one frame that took the given time and allocation to build
+  static void frame(FrameEvent event, long nanos, long bytes) {
+    if (enabled) {
+      FRAME_NANOS.record(nanos);
+      FRAME_BYTES.record(bytes);
+    }
+    if (event.shouldCommit()) {
+      event.buildNanos = nanos;
+      event.allocated = bytes;
+      event.commit();
+    }
+  }
+
+  // returns a copy of everything recorded so far
+  static MetricsSnapshot snapshot() {
+    return new MetricsSnapshot();
+  }
+
+  // forgets everything recorded so far
+  static void reset() {
+    for (Histogram h : new Histogram[] { FLOOD_NANOS, REVEAL_NANOS, LOSS_NANOS, WIN_NANOS,
+        FRAME_NANOS, CELLS_FLOODED, FRONTIER, MOVE_BYTES, TICK_BYTES, FRAME_BYTES }) {
+      h.reset();
+    }
+  }
+}
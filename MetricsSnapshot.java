@@ -0,0 +1,28 @@
+//represents the measurements of Metrics at one moment, safe to read while the game keeps
+//recording
+class MetricsSnapshot {
+  final Histogram floodNanos = new Histogram(Metrics.FLOOD_NANOS);
+  final Histogram revealNanos = new Histogram(Metrics.REVEAL_NANOS);
+  final Histogram lossNanos = new Histogram(Metrics.LOSS_NANOS);
+  final Histogram winNanos = new Histogram(Metrics.WIN_NANOS);
+  final Histogram frameNanos = new Histogram(Metrics.FRAME_NANOS);
+  final Histogram cellsFlooded = new Histogram(Metrics.CELLS_FLOODED);
+  final Histogram frontier = new Histogram(Metrics.FRONTIER);
+  final Histogram moveBytes = new Histogram(Metrics.MOVE_BYTES);
+  final Histogram tickBytes = new Histogram(Metrics.TICK_BYTES);
+  final Histogram frameBytes = new Histogram(Metrics.FRAME_BYTES);
+
+  // describes every histogram, one per line
+  public String toString() {
+    return "flood ns      " + this.floodNanos + "\n"
+        + "reveal ns     " + this.revealNanos + "\n"
+        + "checkLoss ns  " + this.lossNanos + "\n"
+        + "checkWin ns   " + this.winNanos + "\n"
+        + "makeScene ns  " + this.frameNanos + "\n"
+        + "cells flooded " + this.cellsFlooded + "\n"
+        + "frontier      " + this.frontier + "\n"
+        + "move bytes    " + this.moveBytes + "\n"
+        + "tick bytes    " + this.tickBytes + "\n"
+        + "frame bytes   " + this.frameBytes;
+  }
+}
@@ -0,0 +1,86 @@
+//represents the colors of a board at every level of detail: level 0 holds the palette
+//color of every cell, and every cell of level k + 1 holds the most common color of the
+//up to four cells of level k it covers, the first of them on a tie. setting a cell
+//updates the levels above it, stopping at the first one that does not change
+class MipMap {
+  final int size;
+  final int levels;
+  // the number of cells along each side of every level, and their colors, with cell
+  // x * sides[k] + y of level k at column x and row y
+  final int[] sides;
+  final byte[][] colors;
+
+  // constructor, with every cell of color 0
+  MipMap(int size) {
+    this.size = size;
+    int levels = 1;
+    for (int side = size; side > 1; side = (side + 1) / 2) {
+      levels++;
+    }
+    this.levels = levels;
+    this.sides = new int[levels];
+    this.colors = new byte[levels][];
+    int side = size;
+    for (int k = 0; k < levels; k++) {
+      this.sides[k] = side;
+      this.colors[k] = new byte[side * side];
+      side = (side + 1) / 2;
+    }
+  }
+
+  // returns the color of cell (x, y) of the given level
+  int color(int level, int x, int y) {
+    return this.colors[level][x * this.sides[level] + y];
+  }
+
+  // sets the palette color of the given cell and updates the levels above it. returns
+  // true if the color changed
+  boolean set(int i, int c) {
+    if (this.colors[0][i] == c) {
+      return false;
+    }
+    this.colors[0][i] = (byte) c;
+    int x = i / this.size;
+    int y = i % this.size;
+    for (int k = 1; k < this.levels; k++) {
+      x >>= 1;
+      y >>= 1;
+      byte mode = (byte) this.mode(k - 1, 2 * x, 2 * y);
+      int j = x * this.sides[k] + y;
+      if (this.colors[k][j] == mode) {
+        return true;
+      }
+      this.colors[k][j] = mode;
+    }
+    return true;
+  }
+
+  // returns the most common color of the up to four cells of the given level from (x, y)
+  // to (x + 1, y + 1), the first of them in column-major order on a tie
+  int mode(int level, int x, int y) {
+    int side = this.sides[level];
+    byte[] cells = this.colors[level];
+    int best = cells[x * side + y];
+    int bestCount = 0;
+    for (int a = 0; a < 4; a++) {
+      int ax = x + (a >> 1);
+      int ay = y + (a & 1);
+      if (ax < side && ay < side) {
+        int c = cells[ax * side + ay];
+        int count = 0;
+        for (int b = a; b < 4; b++) {
+          int bx = x + (b >> 1);
+          int by = y + (b & 1);
+          if (bx < side && by < side && cells[bx * side + by] == c) {
+            count++;
+          }
+        }
+        if (count > bestCount) {
+          best = c;
+          bestCount = count;
+        }
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,64 @@
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//represents an anytime hint engine for boards too big to solve exactly. it plays Monte
+//Carlo rollouts from the current position on a pool of worker threads until a time
+//budget runs out, and suggests the first move of the shortest game it found
+class MoveAdvisor {
+  final ExecutorService pool;
+  final int workers;
+
+  // constructor, with one worker per core
+  MoveAdvisor() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  // constructor
+  MoveAdvisor(int workers) {
+    this.workers = workers;
+    AtomicInteger count = new AtomicInteger();
+    this.pool = Executors.newFixedThreadPool(workers, r -> {
+      Thread thread = new Thread(r, "move-advisor-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // starts searching for the best next move of the game, giving up after budgetMillis.
+  // only the board is copied on the calling thread, once it has caught up with the
+  // game's engine; the search builds its region graph from the copy on the pool, so the
+  // game can keep being played while it runs. the result is completed with the best move
+  // so far once the budget runs out, even if a worker is still busy
+  Advice advise(FloodItGame game, long budgetMillis) {
+    game.refresh();
+    Advice advice = new Advice(game.board.copy(), game.floodColor, game.colorsUsed,
+        System.nanoTime() + budgetMillis * 1_000_000L, this.workers);
+    this.pool.execute(() -> {
+      advice.prepare();
+      for (int w = 1; w < this.workers; w++) {
+        long seed = w;
+        try {
+          this.pool.execute(() -> advice.work(new Random(seed)));
+        }
+        catch (RejectedExecutionException e) {
+          // shut down while starting: the search goes on with the workers it has
+          advice.running.decrementAndGet();
+        }
+      }
+      advice.work(new Random(0));
+    });
+    CompletableFuture.runAsync(() -> advice.result.complete(advice.bestColor()),
+        CompletableFuture.delayedExecutor(budgetMillis, TimeUnit.MILLISECONDS));
+    return advice;
+  }
+
+  // stops the worker threads
+  void shutdown() {
+    this.pool.shutdownNow();
+  }
+}
@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import jdk.jfr.DataAmount;
+
+//represents one move applied at once in a JFR recording
+@Name("floodit.Move")
+@Label("Flood-It Move")
+@Category("Flood-It")
+@Description("Flooding one move applied at once by FloodItGame")
+class MoveEvent extends Event {
+  @Label("Flood")
+  @Timespan(Timespan.NANOSECONDS)
+  long floodNanos;
+  @Label("Cells Flooded")
+  int cellsFlooded;
+  @Label("Allocated")
+  @DataAmount
+  long allocated;
+}
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+//represents the undo and redo history of a game. a settled board has every flooded cell
+//in the flood color and every unflooded cell in its color from the start, so a move is
+//undone knowing only the flood color before it and the cells it newly flooded. each move
+//is journaled as those two colors followed by its newly flooded cells as runs of
+//consecutive indices, every run a varint gap from the end of the run before and a varint
+//length
+class MoveJournal {
+  final VarintBuffer data = new VarintBuffer();
+  // entry k is data.bytes[starts[k]] up to data.bytes[starts[k + 1]]
+  int[] starts = new int[16];
+  // the number of entries journaled, and the number of them currently applied
+  int count;
+  int moves;
+  // scratch space for the newly flooded cells of a move
+  int[] cells = new int[64];
+  int cellCount;
+
+  // forgets every entry and every cell collected
+  void clear() {
+    this.count = 0;
+    this.moves = 0;
+    this.data.length = 0;
+    this.cellCount = 0;
+  }
+
+  // collects a cell newly flooded by the move being journaled
+  void add(int i) {
+    if (this.cellCount == this.cells.length) {
+      this.cells = Arrays.copyOf(this.cells, this.cellCount * 2);
+    }
+    this.cells[this.cellCount++] = i;
+  }
+
+  // journals a move from the flood color prev to the flood color c that newly flooded the
+  // cells collected with add, dropping every entry that could have been redone
+  void record(int prev, int c) {
+    this.count = this.moves;
+    this.data.length = this.starts[this.moves];
+    this.data.write(prev);
+    this.data.write(c);
+    Arrays.sort(this.cells, 0, this.cellCount);
+    int end = 0;
+    int k = 0;
+    while (k < this.cellCount) {
+      int start = this.cells[k];
+      int next = k + 1;
+      while (next < this.cellCount && this.cells[next] == this.cells[next - 1] + 1) {
+        next++;
+      }
+      this.data.writeVarint(start - end);
+      this.data.writeVarint(next - k);
+      end = start + next - k;
+      k = next;
+    }
+    this.cellCount = 0;
+    this.count++;
+    this.moves++;
+    if (this.moves == this.starts.length) {
+      this.starts = Arrays.copyOf(this.starts, this.moves * 2);
+    }
+    this.starts[this.moves] = this.data.length;
+  }
+
+  // returns true if there is a move to undo
+  boolean canUndo() {
+    return this.moves > 0;
+  }
+
+  // returns true if there is a move to redo
+  boolean canRedo() {
+    return this.moves < this.count;
+  }
+
+  // undoes the last applied move on the board, returning the flood color before it
+  int undo(Board board) {
+    this.moves--;
+    this.data.position = this.starts[this.moves];
+    int prev = this.data.read();
+    this.data.read();
+    int cell = 0;
+    while (this.data.position < this.starts[this.moves + 1]) {
+      cell += (int) this.data.readVarint();
+      for (int end = cell + (int) this.data.readVarint(); cell < end; cell++) {
+        board.unflood(cell);
+      }
+    }
+    board.recolorFlooded(prev);
+    return prev;
+  }
+
+  // undoes the last applied move on the given engine, which must be in its state right
+  // after the move, returning the flood color before it
+  int undo(FloodEngine engine) {
+    this.moves--;
+    this.data.position = this.starts[this.moves];
+    int prev = this.data.read();
+    int c = this.data.read();
+    this.cellCount = 0;
+    int cell = 0;
+    while (this.data.position < this.starts[this.moves + 1]) {
+      cell += (int) this.data.readVarint();
+      for (int end = cell + (int) this.data.readVarint(); cell < end; cell++) {
+        this.add(cell);
+      }
+    }
+    engine.undo(prev, c, this.cells, this.cellCount);
+    this.cellCount = 0;
+    return prev;
+  }
+
+  // redoes the last undone move on the given engine, returning its flood color. the
+  // engine adds the cells it floods to the journal, which already has them
+  int redo(FloodEngine engine) {
+    this.data.position = this.starts[this.moves];
+    this.data.read();
+    int c = this.data.read();
+    engine.move(c);
+    this.cellCount = 0;
+    this.moves++;
+    return c;
+  }
+
+  // redoes the last undone move on the board, returning its flood color
+  int redo(Board board) {
+    this.data.position = this.starts[this.moves];
+    this.data.read();
+    int c = this.data.read();
+    board.recolorFlooded(c);
+    int cell = 0;
+    while (this.data.position < this.starts[this.moves + 1]) {
+      cell += (int) this.data.readVarint();
+      for (int end = cell + (int) this.data.readVarint(); cell < end; cell++) {
+        board.setFlooded(cell);
+      }
+    }
+    this.moves++;
+    return c;
+  }
+
+  // returns the number of bytes the journaled entries take
+  int bytes() {
+    return this.data.length + 4 * (this.count + 1);
+  }
+}
@@ -0,0 +1,7 @@
+import java.util.Random;
+
+//represents a way of choosing the next move of a headless game
+interface MovePolicy {
+  // returns the palette color to play next, which is never the current flood color
+  int choose(FloodItGame game, Random rand);
+}
@@ -0,0 +1,16 @@
+//represents a board dealt by a PuzzlePool from a seed, before its top-left region is
+//flooded, with the moves it was graded at and its tier
+class Puzzle {
+  final long seed;
+  final Board board;
+  final int moves;
+  final int tier;
+
+  // constructor
+  Puzzle(long seed, Board board, int moves, int tier) {
+    this.seed = seed;
+    this.board = board;
+    this.moves = moves;
+    this.tier = tier;
+  }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//represents a pool of boards dealt ahead of time on background threads. every board is
+//graded by the number of moves the greedy policy needs to flood it, which is a move count
+//the board can surely be won in, and sorted into a bounded queue per difficulty tier: the
+//easiest third of the boards graded so far, the middle third and the hardest third.
+//producers drop boards whose tier is full, and wait while every tier is full
+class PuzzlePool {
+  static final int EASY = 0;
+  static final int MEDIUM = 1;
+  static final int HARD = 2;
+  static final int TIERS = 3;
+  // how long a game waits for a board of its tier before it takes one of another
+  static final long WAIT_MILLIS = 250;
+  // how often a wait looks again at whether the pool is closed or the wait is over
+  static final long POLL_MILLIS = 10;
+  static final MovePolicy GREEDY = new GreedyPolicy();
+
+  final int colorsUsed;
+  final int size;
+  final ArrayList<ArrayBlockingQueue<Puzzle>> tiers =
+      new ArrayList<ArrayBlockingQueue<Puzzle>>();
+  final ExecutorService producers;
+  // the seeds boards are dealt from
+  final Random seeds;
+  // the grades of every board so far, which place the tier boundaries
+  final BatchStats grades = new BatchStats();
+  volatile boolean running = true;
+
+  // constructor, with a producer per core but one and 8 boards per tier
+  PuzzlePool(int colorsUsed, int size) {
+    this(colorsUsed, size, Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 8,
+        new Random());
+  }
+
+  // constructor
+  PuzzlePool(int colorsUsed, int size, int producers, int capacity, Random seeds) {
+    if (colorsUsed < 2) {
+      throw new IllegalArgumentException("Puzzles need at least 2 colors");
+    }
+    this.colorsUsed = colorsUsed;
+    this.size = size;
+    this.seeds = seeds;
+    for (int k = 0; k < TIERS; k++) {
+      this.tiers.add(new ArrayBlockingQueue<Puzzle>(capacity));
+    }
+    AtomicInteger count = new AtomicInteger();
+    this.producers = Executors.newFixedThreadPool(producers, r -> {
+      Thread thread = new Thread(r, "puzzle-pool-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+    for (int p = 0; p < producers; p++) {
+      this.producers.execute(this::produce);
+    }
+  }
+
+  // deals, grades and queues boards until the pool is closed
+  void produce() {
+    try {
+      while (this.running) {
+        this.awaitSpace();
+        this.offer(this.deal());
+      }
+    }
+    catch (InterruptedException e) {
+      // closed while waiting
+      return;
+    }
+  }
+
+  // waits while every tier is full
+  synchronized void awaitSpace() throws InterruptedException {
+    while (this.running && this.full()) {
+      this.wait();
+    }
+  }
+
+  // returns true if every tier is full
+  boolean full() {
+    for (ArrayBlockingQueue<Puzzle> tier : this.tiers) {
+      if (tier.remainingCapacity() > 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // queues the puzzle in its tier, unless the tier is full
+  void offer(Puzzle puzzle) {
+    this.tiers.get(puzzle.tier).offer(puzzle);
+  }
+
+  // deals a board from a new seed and grades it
+  Puzzle deal() {
+    long seed = this.seeds.nextLong();
+    Board board = new Board(this.size);
+    board.fill(new Random(seed), this.colorsUsed);
+    int moves = BatchRunner.play(
+        new FloodItGame(board.copy(), this.colorsUsed, 0, new RegionEngine()), GREEDY, null);
+    return new Puzzle(seed, board, moves, this.tierOf(moves));
+  }
+
+  // returns the tier of a board the greedy policy floods in the given number of moves,
+  // counting it among the grades
+  synchronized int tierOf(int moves) {
+    this.grades.record(moves, moves);
+    if (moves < this.grades.percentile(1.0 / TIERS)) {
+      return EASY;
+    }
+    else if (moves > this.grades.percentile(2.0 / TIERS)) {
+      return HARD;
+    }
+    else {
+      return MEDIUM;
+    }
+  }
+
+  // returns a board of the given tier, waiting while the producers refill it. the board
+  // is never dealt on the calling thread
+  Puzzle take(int tier) {
+    return this.take(tier, -1);
+  }
+
+  // returns a board of the given tier, waiting up to the given number of milliseconds, or
+  // for as long as it takes when negative, while the producers refill it. past that, it
+  // returns the first board ready in the nearest tier instead, whose own tier then differs
+  // from the one asked for, so callers have to check it
+  Puzzle take(int tier, long millis) {
+    long deadline = System.nanoTime() + millis * 1000000;
+    boolean interrupted = false;
+    Puzzle puzzle = null;
+    try {
+      while (puzzle == null) {
+        if (!this.running) {
+          throw new IllegalStateException("The puzzle pool is closed");
+        }
+        boolean late = millis >= 0 && System.nanoTime() - deadline >= 0;
+        try {
+          puzzle = this.tiers.get(tier).poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+          interrupted = true;
+        }
+        for (int d = 1; puzzle == null && late && d < TIERS; d++) {
+          puzzle = tier - d >= 0 ? this.tiers.get(tier - d).poll() : null;
+          if (puzzle == null && tier + d < TIERS) {
+            puzzle = this.tiers.get(tier + d).poll();
+          }
+        }
+      }
+    }
+    finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    synchronized (this) {
+      this.notifyAll();
+    }
+    return puzzle;
+  }
+
+  // stops the producers
+  void close() {
+    this.running = false;
+    this.producers.shutdownNow();
+  }
+}
@@ -0,0 +1,10 @@
+import java.util.Random;
+
+//represents a policy that plays a random color other than the flood color
+class RandomPolicy implements MovePolicy {
+  // returns a random palette color other than the flood color
+  public int choose(FloodItGame game, Random rand) {
+    int c = rand.nextInt(game.colorsUsed - 1);
+    return c < game.floodColor ? c : c + 1;
+  }
+}
@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//represents where the records of finished games go: every record handed to it is written
+//to its stream at once, after the ones before, so the stream can be read back with
+//GameRecord.readAll and checked with GameReplayer. one archive can be shared by many
+//games, like the sessions of a GameServer, and writes one record at a time. an archive of
+//a file opens it to append to when the first record arrives
+class RecordArchive {
+  // the file the stream appends to, or null when the stream was given
+  final Path path;
+  OutputStream out;
+  final VarintBuffer buffer = new VarintBuffer();
+  // the number of records written
+  int count;
+
+  // constructor, writing to the given stream
+  RecordArchive(OutputStream out) {
+    this.path = null;
+    this.out = out;
+  }
+
+  // constructor, appending to the given file
+  RecordArchive(Path path) {
+    this.path = path;
+  }
+
+  // writes the given record to the stream. a record that cannot be written is reported
+  // and dropped, so a full disk never stops a game
+  synchronized void add(GameRecord record) {
+    this.buffer.length = 0;
+    record.write(this.buffer);
+    try {
+      if (this.out == null) {
+        this.out = Files.newOutputStream(this.path, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+      }
+      this.out.write(this.buffer.bytes, 0, this.buffer.length);
+      this.out.flush();
+      this.count++;
+    }
+    catch (IOException e) {
+      System.err.println("game archive: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,380 @@
+import java.util.Arrays;
+
+//represents the board as a graph of same-colored connected regions. a move absorbs every
+//region of the chosen color that borders the flooded regions, so its cost depends on the
+//regions along the border of the flood and not on the number of flooded cells
+class RegionEngine implements FloodEngine {
+  Board board;
+  // the region of every cell
+  int[] label;
+  int regions;
+  // the palette color and number of cells of every region
+  byte[] regionColor;
+  int[] regionSize;
+  // the cells of region r are members[memberStart[r]] up to members[memberStart[r + 1]]
+  int[] memberStart;
+  int[] members;
+  // the neighbors of region r are adj[adjStart[r]] up to adj[adjStart[r + 1]]
+  int[] adjStart;
+  int[] adj;
+  // the region pairs found while building the adjacency lists, where each region's list
+  // is filled up to, and the cells waiting to be labeled, all kept for the next load
+  long[] edges = new long[64];
+  int edgeCount;
+  int[] fill = new int[16];
+  int[] stack = new int[64];
+
+  // the flooded regions, and the regions that border them grouped by color, with the
+  // place of every bordering region in the list of its color
+  boolean[] flooded;
+  boolean[] bordering;
+  int[][] border;
+  int[] borderCount;
+  int[] borderIndex;
+  // the number of cells in the bordering regions of each color
+  int[] borderCells;
+  int floodedCount;
+  int color;
+  // the journal the cells newly flooded by every move are added to, or null, and the
+  // regions an undo takes back
+  MoveJournal journal;
+  int[] undone = new int[16];
+
+  // returns true, as regions are labeled along the neighbors of any topology
+  public boolean supports(Topology topology) {
+    return true;
+  }
+
+  // rebuilds the engine's state from the given board and floods the region of its
+  // top-left cell. the arrays of the last board are reused wherever they are big enough,
+  // so loading boards of one size over and over stops allocating
+  public void load(Board board) {
+    this.board = board;
+    this.label(board);
+    this.connect(board);
+    if (this.flooded == null || this.flooded.length < this.regions) {
+      this.flooded = new boolean[this.regions];
+      this.bordering = new boolean[this.regions];
+      this.borderIndex = new int[this.regions];
+    }
+    else {
+      Arrays.fill(this.flooded, 0, this.regions, false);
+      Arrays.fill(this.bordering, 0, this.regions, false);
+    }
+    if (this.border == null) {
+      this.border = new int[Board.PALETTE][16];
+      this.borderCount = new int[Board.PALETTE];
+      this.borderCells = new int[Board.PALETTE];
+    }
+    Arrays.fill(this.borderCount, 0);
+    Arrays.fill(this.borderCells, 0);
+    this.floodedCount = 0;
+    this.color = this.regionColor[this.label[0]];
+    this.absorb(this.label[0]);
+  }
+
+  // returns an engine in the same state as this one that can move independently. the
+  // region graph never changes after load, so it is shared rather than copied, and the
+  // copy must not be used once this engine loads another board
+  RegionEngine copy() {
+    RegionEngine copy = new RegionEngine();
+    copy.board = this.board;
+    copy.label = this.label;
+    copy.regions = this.regions;
+    copy.regionColor = this.regionColor;
+    copy.regionSize = this.regionSize;
+    copy.memberStart = this.memberStart;
+    copy.members = this.members;
+    copy.adjStart = this.adjStart;
+    copy.adj = this.adj;
+    copy.flooded = this.flooded.clone();
+    copy.bordering = this.bordering.clone();
+    copy.border = new int[Board.PALETTE][];
+    for (int c = 0; c < Board.PALETTE; c++) {
+      copy.border[c] = this.border[c].clone();
+    }
+    copy.borderCount = this.borderCount.clone();
+    copy.borderIndex = this.borderIndex.clone();
+    copy.borderCells = this.borderCells.clone();
+    copy.floodedCount = this.floodedCount;
+    copy.color = this.color;
+    return copy;
+  }
+
+  // gives every cell the number of its same-colored connected region, and lists the
+  // cells of every region in the order they are labeled
+  void label(Board board) {
+    if (this.label == null || this.label.length != board.cells) {
+      this.label = new int[board.cells];
+      this.members = new int[board.cells];
+    }
+    Arrays.fill(this.label, -1);
+    if (this.regionColor == null) {
+      this.regionColor = new byte[16];
+      this.regionSize = new int[16];
+      this.memberStart = new int[17];
+    }
+    this.regions = 0;
+    int[] stack = this.stack;
+    for (int start = 0; start < board.cells; start++) {
+      if (this.label[start] >= 0) {
+        continue;
+      }
+      int r = this.regions++;
+      if (r == this.regionColor.length) {
+        this.regionColor = Arrays.copyOf(this.regionColor, r * 2);
+        this.regionSize = Arrays.copyOf(this.regionSize, r * 2);
+        this.memberStart = Arrays.copyOf(this.memberStart, r * 2 + 1);
+      }
+      byte c = board.colors[start];
+      this.regionColor[r] = c;
+      this.label[start] = r;
+      stack[0] = start;
+      int top = 1;
+      int size = 0;
+      int first = this.memberStart[r];
+      while (top > 0) {
+        int i = stack[--top];
+        this.members[first + size] = i;
+        size++;
+        if (stack.length - top < board.topology.degree) {
+          stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        Adjacency adjacency = board.adjacency;
+        if (adjacency != null) {
+          for (int k = adjacency.offsets[i]; k < adjacency.offsets[i + 1]; k++) {
+            top = this.visit(adjacency.neighbors[k], c, r, stack, top);
+          }
+        }
+        else {
+          top = this.visit(board.top(i), c, r, stack, top);
+          top = this.visit(board.left(i), c, r, stack, top);
+          top = this.visit(board.right(i), c, r, stack, top);
+          top = this.visit(board.bottom(i), c, r, stack, top);
+        }
+      }
+      this.regionSize[r] = size;
+      this.memberStart[r + 1] = first + size;
+    }
+    this.stack = stack;
+  }
+
+  // pushes the given cell onto the stack and labels it r if it exists, is unlabeled and
+  // has the color c, returning the new stack height
+  int visit(int i, byte c, int r, int[] stack, int top) {
+    if (i >= 0 && this.label[i] < 0 && this.board.colors[i] == c) {
+      this.label[i] = r;
+      stack[top++] = i;
+    }
+    return top;
+  }
+
+  // builds the region adjacency lists from every pair of neighboring cells that belong
+  // to different regions
+  void connect(Board board) {
+    this.edgeCount = 0;
+    Adjacency adjacency = board.adjacency;
+    for (int i = 0; i < board.cells; i++) {
+      if (adjacency != null) {
+        for (int k = adjacency.offsets[i]; k < adjacency.offsets[i + 1]; k++) {
+          if (adjacency.neighbors[k] > i) {
+            this.edge(i, adjacency.neighbors[k]);
+          }
+        }
+      }
+      else {
+        this.edge(i, board.right(i));
+        this.edge(i, board.bottom(i));
+      }
+    }
+    long[] edges = this.edges;
+    int count = this.edgeCount;
+    Arrays.sort(edges, 0, count);
+    int unique = 0;
+    for (int k = 0; k < count; k++) {
+      if (unique == 0 || edges[k] != edges[unique - 1]) {
+        edges[unique++] = edges[k];
+      }
+    }
+    if (this.adjStart == null || this.adjStart.length < this.regions + 1) {
+      this.adjStart = new int[this.regions + 1];
+    }
+    else {
+      Arrays.fill(this.adjStart, 0, this.regions + 1, 0);
+    }
+    for (int k = 0; k < unique; k++) {
+      this.adjStart[(int) (edges[k] >>> 32) + 1]++;
+      this.adjStart[(int) edges[k] + 1]++;
+    }
+    for (int r = 0; r < this.regions; r++) {
+      this.adjStart[r + 1] += this.adjStart[r];
+    }
+    if (this.adj == null || this.adj.length < unique * 2) {
+      this.adj = new int[unique * 2];
+    }
+    if (this.fill.length < this.regions) {
+      this.fill = new int[this.regions];
+    }
+    int[] fill = this.fill;
+    System.arraycopy(this.adjStart, 0, fill, 0, this.regions);
+    for (int k = 0; k < unique; k++) {
+      int a = (int) (edges[k] >>> 32);
+      int b = (int) edges[k];
+      this.adj[fill[a]++] = b;
+      this.adj[fill[b]++] = a;
+    }
+  }
+
+  // records an edge between the regions of the cells i and j if j exists and belongs to
+  // another region
+  void edge(int i, int j) {
+    if (j >= 0 && this.label[j] != this.label[i]) {
+      if (this.edgeCount == this.edges.length) {
+        this.edges = Arrays.copyOf(this.edges, this.edgeCount * 2);
+      }
+      int a = Math.min(this.label[i], this.label[j]);
+      int b = Math.max(this.label[i], this.label[j]);
+      this.edges[this.edgeCount++] = ((long) a << 32) | b;
+    }
+  }
+
+  // floods the region r and adds its unflooded neighbors to the border
+  void absorb(int r) {
+    this.flooded[r] = true;
+    this.floodedCount += this.regionSize[r];
+    for (int k = this.adjStart[r]; k < this.adjStart[r + 1]; k++) {
+      int s = this.adj[k];
+      if (!this.flooded[s] && !this.bordering[s]) {
+        this.bordering[s] = true;
+        int c = this.regionColor[s];
+        if (this.borderCount[c] == this.border[c].length) {
+          this.border[c] = Arrays.copyOf(this.border[c], this.borderCount[c] * 2);
+        }
+        this.borderIndex[s] = this.borderCount[c];
+        this.border[c][this.borderCount[c]++] = s;
+        this.borderCells[c] += this.regionSize[s];
+      }
+    }
+  }
+
+  // absorbs every bordering region of the palette color c. two regions of the same color
+  // never touch, so the absorbed regions never add more regions of that color
+  public void move(int c) {
+    this.color = c;
+    int[] absorbed = this.border[c];
+    int count = this.borderCount[c];
+    this.borderCount[c] = 0;
+    this.borderCells[c] = 0;
+    for (int k = 0; k < count; k++) {
+      this.bordering[absorbed[k]] = false;
+      this.absorb(absorbed[k]);
+      if (this.journal != null) {
+        int r = absorbed[k];
+        for (int m = this.memberStart[r]; m < this.memberStart[r + 1]; m++) {
+          this.journal.add(this.members[m]);
+        }
+      }
+    }
+  }
+
+  // returns the number of cells a move of the palette color c would flood
+  int gain(int c) {
+    return this.borderCells[c];
+  }
+
+  // returns the palette color of the flooded region
+  public int color() {
+    return this.color;
+  }
+
+  // returns the palette color of the given cell
+  public int colorAt(int i) {
+    int r = this.label[i];
+    return this.flooded[r] ? this.color : this.regionColor[r];
+  }
+
+  // returns the number of flooded cells
+  public int floodedCount() {
+    return this.floodedCount;
+  }
+
+  // floods every cell of the flooded regions and recolors the flooded cells, at a cost in
+  // the number of regions and flooded cells rather than in the number of cells
+  public void store() {
+    for (int r = 0; r < this.regions; r++) {
+      if (this.flooded[r]) {
+        for (int m = this.memberStart[r]; m < this.memberStart[r + 1]; m++) {
+          this.board.setFlooded(this.members[m]);
+        }
+      }
+    }
+    this.board.recolorFlooded(this.color);
+  }
+
+  // adds the cells every later move newly floods to the given journal
+  public void journal(MoveJournal journal) {
+    this.journal = journal;
+  }
+
+  // takes back the last move by unflooding the regions of its cells, which all bordered
+  // the flood before it and so go back on the border of their color c. their neighbors
+  // leave the border unless they still touch the flood, so an undo costs as much as the
+  // regions around the ones it takes back
+  public void undo(int prev, int c, int[] cells, int count) {
+    int undoneCount = 0;
+    for (int k = 0; k < count; k++) {
+      int r = this.label[cells[k]];
+      if (this.flooded[r]) {
+        this.flooded[r] = false;
+        this.floodedCount -= this.regionSize[r];
+        if (undoneCount == this.undone.length) {
+          this.undone = Arrays.copyOf(this.undone, undoneCount * 2);
+        }
+        this.undone[undoneCount++] = r;
+      }
+      this.board.unflood(cells[k]);
+      this.board.setColor(cells[k], c);
+    }
+    for (int k = 0; k < undoneCount; k++) {
+      int r = this.undone[k];
+      for (int a = this.adjStart[r]; a < this.adjStart[r + 1]; a++) {
+        int s = this.adj[a];
+        if (this.bordering[s] && !this.touchesFlood(s)) {
+          this.leaveBorder(s);
+        }
+      }
+    }
+    for (int k = 0; k < undoneCount; k++) {
+      int r = this.undone[k];
+      this.bordering[r] = true;
+      if (this.borderCount[c] == this.border[c].length) {
+        this.border[c] = Arrays.copyOf(this.border[c], this.borderCount[c] * 2);
+      }
+      this.borderIndex[r] = this.borderCount[c];
+      this.border[c][this.borderCount[c]++] = r;
+      this.borderCells[c] += this.regionSize[r];
+    }
+    this.color = prev;
+  }
+
+  // returns true if the region r has a flooded neighbor
+  boolean touchesFlood(int r) {
+    for (int a = this.adjStart[r]; a < this.adjStart[r + 1]; a++) {
+      if (this.flooded[this.adj[a]]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // takes the bordering region r off the border, moving the last region of its color
+  // into its place
+  void leaveBorder(int r) {
+    int c = this.regionColor[r];
+    int last = this.border[c][--this.borderCount[c]];
+    this.border[c][this.borderIndex[r]] = last;
+    this.borderIndex[last] = this.borderIndex[r];
+    this.bordering[r] = false;
+    this.borderCells[c] -= this.regionSize[r];
+  }
+}
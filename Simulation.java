@@ -0,0 +1,160 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//represents the game of a FloodItWorld simulated on a thread of its own, at its own rate,
+//apart from drawing. mouse and key events are queued to the simulation thread and all of
+//them run before its next tick. after every tick the board is published as a snapshot
+//into one of two buffers: the renderer draws from the front buffer, and the simulation
+//writes the back buffer and swaps it to the front. an atomic state word records which
+//buffer is in front and which one the renderer is holding, so neither side ever waits. a
+//tick that finds the renderer still holding the back buffer skips publishing. the world
+//marks the cells whose shown color a tick may change, and a snapshot only copies those,
+//and lists them for the renderer
+class Simulation implements Runnable {
+  final FloodItWorld world;
+  final long tickNanos;
+  // the events waiting for the next tick
+  final ConcurrentLinkedQueue<Runnable> input = new ConcurrentLinkedQueue<Runnable>();
+  final Snapshot[] buffers = { new Snapshot(), new Snapshot() };
+  // bit 0 is the index of the front buffer, and the bits above it are one more than the
+  // index of the buffer the renderer holds, or 0 when it holds none
+  final AtomicInteger state = new AtomicInteger();
+  Thread thread;
+  volatile boolean running;
+  // the ticks simulated, and the snapshots skipped as the renderer held the back buffer
+  volatile long ticks;
+  long skipped;
+  // the number of snapshots published
+  long published;
+  // the cells marked since the last snapshot published, unless every cell is to be looked at
+  int[] marked = new int[64];
+  int markedCount;
+  boolean markedAll = true;
+
+  // constructor, publishing the world's game as it is now
+  Simulation(FloodItWorld world, long tickNanos) {
+    this.world = world;
+    this.tickNanos = tickNanos;
+    this.publish();
+  }
+
+  // starts simulating
+  void start() {
+    this.running = true;
+    this.thread = new Thread(this, "flood-simulation");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  // stops simulating, then runs the events still waiting and publishes their outcome on
+  // the calling thread
+  void stop() throws InterruptedException {
+    this.running = false;
+    this.thread.interrupt();
+    this.thread.join();
+    this.drain();
+    this.world.refresh();
+    this.publish();
+  }
+
+  // queues an event to run on the simulation thread before its next tick
+  void post(Runnable event) {
+    this.input.add(event);
+  }
+
+  // marks the given cell to be looked at by the next snapshot. once more than a quarter of
+  // the board is marked, the next snapshot looks at every cell instead
+  void mark(int i) {
+    if (this.markedAll) {
+      return;
+    }
+    if (this.markedCount == this.marked.length) {
+      if (this.markedCount > this.world.game.board.cells / 4) {
+        this.invalidate();
+        return;
+      }
+      this.marked = Arrays.copyOf(this.marked, this.markedCount * 2);
+    }
+    this.marked[this.markedCount++] = i;
+  }
+
+  // marks every cell to be looked at by the next snapshot
+  void invalidate() {
+    this.markedAll = true;
+    this.markedCount = 0;
+  }
+
+  // ticks every tickNanos until stopped, falling behind rather than catching up in a burst
+  // when a tick takes longer
+  public void run() {
+    long next = System.nanoTime();
+    while (this.running) {
+      this.step();
+      next += this.tickNanos;
+      long wait = next - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      else {
+        next = System.nanoTime();
+      }
+    }
+  }
+
+  // runs the waiting events, ticks the game and publishes it
+  void step() {
+    this.drain();
+    this.world.step();
+    this.world.refresh();
+    this.ticks++;
+    this.publish();
+  }
+
+  // runs every waiting event
+  void drain() {
+    Runnable event = this.input.poll();
+    while (event != null) {
+      event.run();
+      event = this.input.poll();
+    }
+  }
+
+  // writes the game into the back buffer and swaps it to the front, unless the renderer
+  // still holds the back buffer, in which case the cells marked wait for the next snapshot
+  void publish() {
+    int s = this.state.get();
+    int back = 1 - (s & 1);
+    if (s >>> 1 == back + 1) {
+      this.skipped++;
+      return;
+    }
+    this.published++;
+    this.buffers[back].write(this.world.game, this.ticks, this.published, this.buffers[1 - back],
+        this.marked, this.markedCount, this.markedAll);
+    this.markedCount = 0;
+    this.markedAll = false;
+    s = this.state.get();
+    while (!this.state.compareAndSet(s, (s & ~1) | back)) {
+      s = this.state.get();
+    }
+  }
+
+  // returns the front snapshot, which stays unchanged until released
+  Snapshot acquire() {
+    int s = this.state.get();
+    while (!this.state.compareAndSet(s, (s & 1) | ((s & 1) + 1) << 1)) {
+      s = this.state.get();
+    }
+    return this.buffers[s & 1];
+  }
+
+  // lets the simulation write the snapshot last acquired again
+  void release() {
+    int s = this.state.get();
+    while (!this.state.compareAndSet(s, s & 1)) {
+      s = this.state.get();
+    }
+  }
+}
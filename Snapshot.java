@@ -0,0 +1,68 @@
+//represents what a frame draws of a game: the color every cell is shown in, as the wave
+//being replayed has revealed it, and the labels and end state. the colors stay in the
+//buffer from the last time it was written, which was two snapshots ago, so writing it only
+//copies the cells marked for the snapshot in between and for this one. the cells marked
+//for this one are listed, so a frame that drew the snapshot before it only has to look at
+//those
+class Snapshot {
+  int size;
+  boolean staggered;
+  byte[] colors;
+  // the cells whose color may differ from the snapshot published before this one, unless
+  // all of them may
+  int[] dirty = new int[64];
+  int dirtyCount;
+  boolean all;
+  int movesLimit;
+  int time;
+  boolean won;
+  boolean lost;
+  // true while the wave of the last move is still being revealed
+  boolean playing;
+  // the tick the snapshot was taken after, and the number of snapshots published up to it
+  long tick;
+  long seq;
+
+  // copies the shown state of the game after the given tick, as the seq-th snapshot, where
+  // the cells that may have changed since the previous snapshot are marked, or all of them
+  void write(FloodItGame game, long tick, long seq, Snapshot previous, int[] marked,
+      int markedCount, boolean markedAll) {
+    Board board = game.board;
+    WaveReplay replay = game.replay;
+    boolean fresh = this.colors == null || this.colors.length != board.cells;
+    if (fresh) {
+      this.colors = new byte[board.cells];
+    }
+    this.all = fresh || markedAll;
+    if (this.all || previous.all) {
+      for (int i = 0; i < board.cells; i++) {
+        this.colors[i] = (byte) replay.shownColor(board, i);
+      }
+    }
+    else {
+      this.copy(board, replay, previous.dirty, previous.dirtyCount);
+      this.copy(board, replay, marked, markedCount);
+    }
+    this.dirtyCount = this.all ? 0 : markedCount;
+    if (this.dirty.length < this.dirtyCount) {
+      this.dirty = new int[marked.length];
+    }
+    System.arraycopy(marked, 0, this.dirty, 0, this.dirtyCount);
+    this.size = board.size;
+    this.staggered = game.topology.staggered;
+    this.movesLimit = game.movesLimit;
+    this.time = game.time;
+    this.won = game.won;
+    this.lost = game.lost;
+    this.playing = replay.playing();
+    this.tick = tick;
+    this.seq = seq;
+  }
+
+  // copies the shown color of the given cells
+  void copy(Board board, WaveReplay replay, int[] cells, int count) {
+    for (int k = 0; k < count; k++) {
+      this.colors[cells[k]] = (byte) replay.shownColor(board, cells[k]);
+    }
+  }
+}
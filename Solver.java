@@ -0,0 +1,341 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+//represents an exact solver that finds the fewest moves that flood a board. it runs IDA*
+//over sets of flooded regions of the board's region graph, with a Zobrist hashed
+//transposition table of bounded size. the board must be settled, so that its flooded
+//cells are exactly the region of the top-left cell
+class Solver {
+  // returned by search when a solution has been found
+  static final int FOUND = -1;
+  static final int INFINITY = Integer.MAX_VALUE;
+
+  // the region graph, with the regions bordering region r and the regions of palette
+  // color c as bitsets of words longs starting at r * words and c * words
+  final RegionEngine regions;
+  final int words;
+  final long[] neighborMask;
+  final long[] colorMask;
+  final long[] zobrist;
+
+  // per depth scratch bitsets of the flooded and bordering regions
+  long[][] flooded;
+  long[][] border;
+  int[] moves;
+  int iteration;
+  long nodes;
+  int[] solution;
+  // scratch space for the heuristic
+  long[] reached;
+  long[] layer;
+  long[] next;
+  int[] layerColors = new int[16];
+
+  // the transposition table: a two-way set associative table indexed by the low bits of
+  // the key, storing a proven lower bound on the moves still needed, and the fewest
+  // moves it took to reach the state in the current iteration
+  final long[] ttKey;
+  final byte[] ttBound;
+  final byte[] ttDepth;
+  final int[] ttIteration;
+  final int ttMask;
+
+  // constructor, with a transposition table of 2^20 entries
+  Solver(Board board) {
+    this(board, 20);
+  }
+
+  // constructor, with a transposition table of 2^tableBits entries
+  Solver(Board board, int tableBits) {
+    this.regions = new RegionEngine();
+    this.regions.load(board.copy());
+    int count = this.regions.regions;
+    this.words = (count + 63) >>> 6;
+    this.neighborMask = new long[count * this.words];
+    this.colorMask = new long[Board.PALETTE * this.words];
+    this.zobrist = new long[count];
+    SplittableRandom keys = new SplittableRandom(count);
+    for (int r = 0; r < count; r++) {
+      this.zobrist[r] = keys.nextLong();
+      set(this.colorMask, this.regions.regionColor[r] * this.words, r);
+      for (int k = this.regions.adjStart[r]; k < this.regions.adjStart[r + 1]; k++) {
+        set(this.neighborMask, r * this.words, this.regions.adj[k]);
+      }
+    }
+    this.reached = new long[this.words];
+    this.layer = new long[this.words];
+    this.next = new long[this.words];
+    this.ttKey = new long[1 << tableBits];
+    this.ttBound = new byte[1 << tableBits];
+    this.ttDepth = new byte[1 << tableBits];
+    this.ttIteration = new int[1 << tableBits];
+    this.ttMask = (1 << tableBits) - 2;
+  }
+
+  // sets bit b of the bitset starting at offset in words
+  static void set(long[] words, int offset, int b) {
+    words[offset + (b >>> 6)] |= 1L << b;
+  }
+
+  // returns the fewest palette colors that, played in order, flood the whole board
+  int[] solve() {
+    this.flooded = new long[8][this.words];
+    this.border = new long[8][this.words];
+    this.moves = new int[8];
+    int start = this.regions.label[0];
+    set(this.flooded[0], 0, start);
+    this.absorbInto(this.border[0], this.flooded[0], start);
+    long key = this.zobrist[start];
+    int bound = this.heuristic(this.flooded[0], this.border[0]);
+    while (true) {
+      this.iteration++;
+      int t = this.search(0, 0, bound, key);
+      if (t == FOUND) {
+        return this.solution;
+      }
+      bound = t;
+    }
+  }
+
+  // searches for a solution within bound moves from the state at the given depth, that
+  // took g moves to reach. returns FOUND or the smallest f beyond the bound
+  int search(int depth, int g, int bound, long key) {
+    this.nodes++;
+    long[] fl = this.flooded[depth];
+    long[] bo = this.border[depth];
+    if (this.isEmpty(bo)) {
+      this.solution = Arrays.copyOf(this.moves, g);
+      return FOUND;
+    }
+    int h = this.heuristic(fl, bo);
+    int slot = this.probe(key);
+    if (slot >= 0) {
+      if (this.ttIteration[slot] == this.iteration && this.ttDepth[slot] <= g) {
+        // already searched this iteration from no further away, and it failed
+        return g + this.ttBound[slot];
+      }
+      h = Math.max(h, this.ttBound[slot]);
+    }
+    if (g + h > bound) {
+      return g + h;
+    }
+    if (depth + 1 == this.flooded.length) {
+      this.grow();
+      fl = this.flooded[depth];
+      bo = this.border[depth];
+    }
+
+    int min = INFINITY;
+    int[] order = this.order(fl, bo);
+    for (int c : order) {
+      long childKey = this.play(depth, c, key);
+      this.moves[g] = c;
+      int t = this.search(depth + 1, g + 1, bound, childKey);
+      if (t == FOUND) {
+        return FOUND;
+      }
+      min = Math.min(min, t);
+    }
+    this.store(key, min - g, g);
+    return min;
+  }
+
+  // returns the colors worth playing from the given state, best first. if every
+  // unflooded region of some color borders the flood, playing that color first is
+  // always optimal, so it is the only one returned
+  int[] order(long[] fl, long[] bo) {
+    int[] gains = new int[Board.PALETTE];
+    int count = 0;
+    for (int c = 0; c < Board.PALETTE; c++) {
+      int gain = 0;
+      boolean complete = true;
+      for (int w = 0; w < this.words; w++) {
+        long mask = this.colorMask[c * this.words + w];
+        gain += Long.bitCount(bo[w] & mask);
+        complete = complete && (mask & ~fl[w] & ~bo[w]) == 0;
+      }
+      if (gain > 0 && complete) {
+        return new int[] { c };
+      }
+      gains[c] = gain;
+      if (gain > 0) {
+        count++;
+      }
+    }
+    int[] order = new int[count];
+    for (int k = 0; k < count; k++) {
+      int best = -1;
+      for (int c = 0; c < Board.PALETTE; c++) {
+        if (gains[c] > 0 && (best < 0 || gains[c] > gains[best])) {
+          best = c;
+        }
+      }
+      order[k] = best;
+      gains[best] = 0;
+    }
+    return order;
+  }
+
+  // fills the state at depth + 1 with the result of playing c at depth, and returns its
+  // key
+  long play(int depth, int c, long key) {
+    long[] fl = this.flooded[depth + 1];
+    long[] bo = this.border[depth + 1];
+    System.arraycopy(this.flooded[depth], 0, fl, 0, this.words);
+    System.arraycopy(this.border[depth], 0, bo, 0, this.words);
+    for (int w = 0; w < this.words; w++) {
+      long absorbed = this.border[depth][w] & this.colorMask[c * this.words + w];
+      fl[w] |= absorbed;
+      bo[w] &= ~absorbed;
+      while (absorbed != 0) {
+        int r = (w << 6) + Long.numberOfTrailingZeros(absorbed);
+        absorbed &= absorbed - 1;
+        key ^= this.zobrist[r];
+        for (int v = 0; v < this.words; v++) {
+          bo[v] |= this.neighborMask[r * this.words + v];
+        }
+      }
+    }
+    for (int w = 0; w < this.words; w++) {
+      bo[w] &= ~fl[w];
+    }
+    return key;
+  }
+
+  // adds the unflooded neighbors of region r to the border
+  void absorbInto(long[] bo, long[] fl, int r) {
+    for (int w = 0; w < this.words; w++) {
+      bo[w] |= this.neighborMask[r * this.words + w] & ~fl[w];
+    }
+  }
+
+  // returns a lower bound on the moves still needed. a region j steps away from the
+  // flood in the region graph cannot be flooded before move j, so if the regions at
+  // least j steps away have k colors between them, at least j - 1 + k moves are needed
+  int heuristic(long[] fl, long[] bo) {
+    long[] reached = this.reached;
+    long[] layer = this.layer;
+    long[] next = this.next;
+    System.arraycopy(fl, 0, reached, 0, this.words);
+    System.arraycopy(bo, 0, layer, 0, this.words);
+    int distance = 0;
+    while (!this.isEmpty(layer)) {
+      if (distance == this.layerColors.length) {
+        this.layerColors = Arrays.copyOf(this.layerColors, distance * 2);
+      }
+      this.layerColors[distance++] = this.colorsIn(layer);
+      Arrays.fill(next, 0L);
+      for (int w = 0; w < this.words; w++) {
+        reached[w] |= layer[w];
+      }
+      for (int w = 0; w < this.words; w++) {
+        long bits = layer[w];
+        while (bits != 0) {
+          int r = (w << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+          for (int v = 0; v < this.words; v++) {
+            next[v] |= this.neighborMask[r * this.words + v];
+          }
+        }
+      }
+      for (int w = 0; w < this.words; w++) {
+        next[w] &= ~reached[w];
+      }
+      long[] temp = layer;
+      layer = next;
+      next = temp;
+    }
+    int bound = 0;
+    int colors = 0;
+    for (int j = distance; j >= 1; j--) {
+      colors |= this.layerColors[j - 1];
+      bound = Math.max(bound, j - 1 + Integer.bitCount(colors));
+    }
+    return bound;
+  }
+
+  // returns the palette colors of the regions in the bitset, one bit per color
+  int colorsIn(long[] bits) {
+    int colors = 0;
+    for (int c = 0; c < Board.PALETTE; c++) {
+      for (int w = 0; w < this.words; w++) {
+        if ((bits[w] & this.colorMask[c * this.words + w]) != 0) {
+          colors |= 1 << c;
+          break;
+        }
+      }
+    }
+    return colors;
+  }
+
+  // returns true if the bitset has no bits set
+  boolean isEmpty(long[] bits) {
+    for (long w : bits) {
+      if (w != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // returns the slot holding the given key, or -1 if it is not in the table
+  int probe(long key) {
+    int slot = (int) key & this.ttMask;
+    if (this.ttKey[slot] == key) {
+      return slot;
+    }
+    if (this.ttKey[slot + 1] == key) {
+      return slot + 1;
+    }
+    return -1;
+  }
+
+  // records that the state with the given key needs at least bound more moves and was
+  // reached in g moves this iteration. a new key evicts whichever entry of its set was
+  // reached by the longer path, as those prune the least
+  void store(long key, int bound, int g) {
+    int slot = this.probe(key);
+    if (slot < 0) {
+      slot = (int) key & this.ttMask;
+      if (this.ttIteration[slot] == this.iteration
+          && (this.ttIteration[slot + 1] != this.iteration
+              || this.ttDepth[slot + 1] > this.ttDepth[slot])) {
+        slot++;
+      }
+    }
+    this.ttKey[slot] = key;
+    this.ttBound[slot] = (byte) Math.min(bound, Byte.MAX_VALUE);
+    this.ttDepth[slot] = (byte) Math.min(g, Byte.MAX_VALUE);
+    this.ttIteration[slot] = this.iteration;
+  }
+
+  // doubles the number of depths with scratch space
+  void grow() {
+    int depths = this.flooded.length * 2;
+    this.flooded = Arrays.copyOf(this.flooded, depths);
+    this.border = Arrays.copyOf(this.border, depths);
+    for (int d = depths / 2; d < depths; d++) {
+      this.flooded[d] = new long[this.words];
+      this.border[d] = new long[this.words];
+    }
+    this.moves = Arrays.copyOf(this.moves, depths);
+  }
+
+  // solves seeded boards and prints the optimal move counts and times. run with
+  // "java Solver size colors boards"
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 14;
+    int colors = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+    int boards = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    for (int seed = 0; seed < boards; seed++) {
+      FloodItGame game = new FloodItGame(colors, size, new Random(seed), new RegionEngine());
+      long start = System.nanoTime();
+      Solver solver = new Solver(game.board);
+      int[] solution = solver.solve();
+      System.out.printf("seed %3d: %2d moves in %8.1f ms, %10d nodes  %s%n", seed,
+          solution.length, (System.nanoTime() - start) / 1e6, solver.nodes,
+          Arrays.toString(solution));
+    }
+  }
+}
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import jdk.jfr.DataAmount;
+
+//represents one tick of the game in a JFR recording
+@Name("floodit.Tick")
+@Label("Flood-It Tick")
+@Category("Flood-It")
+@Description("The phases of one FloodItGame tick")
+class TickEvent extends Event {
+  @Label("Reveal")
+  @Timespan(Timespan.NANOSECONDS)
+  long revealNanos;
+  @Label("Flood")
+  @Timespan(Timespan.NANOSECONDS)
+  long floodNanos;
+  @Label("Check Loss")
+  @Timespan(Timespan.NANOSECONDS)
+  long lossNanos;
+  @Label("Check Win")
+  @Timespan(Timespan.NANOSECONDS)
+  long winNanos;
+  @Label("Frontier Size")
+  int frontier;
+  @Label("Cells Flooded")
+  int cellsFlooded;
+  @Label("Allocated")
+  @DataAmount
+  long allocated;
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+//represents one tile of a TileFloodEngine: the cells in rows row0 up to row1 and columns
+//col0 up to col1, with the flooded cells along its part of the edge of the flood, the
+//seeds posted to it and by it, and the cells its rounds of the current move flooded
+class Tile {
+  final int row0;
+  final int row1;
+  final int col0;
+  final int col1;
+  // the flooded cells of the tile that may touch unflooded cells, a superset of those
+  // that do
+  int[] frontier = new int[16];
+  int frontierCount;
+  // true when the next round starts from the frontier, and true when the frontier has to
+  // be found again from the board first
+  boolean seeding;
+  boolean rescan;
+  // seeds posted to the tile by its neighbors, and seeds it posts to them
+  int[] inbox = new int[16];
+  int inCount;
+  int[] outbox = new int[16];
+  int outCount;
+  // the cells waiting to have their neighbors visited
+  int[] stack = new int[64];
+  int top;
+  // the cells the current move has newly flooded
+  int gained;
+  int[] gainedCells = new int[16];
+
+  // constructor
+  Tile(int row0, int row1, int col0, int col1) {
+    this.row0 = row0;
+    this.row1 = row1;
+    this.col0 = col0;
+    this.col1 = col1;
+  }
+
+  // finds the frontier of the tile from the board: every flooded cell of the tile with an
+  // unflooded neighbor
+  void findFrontier(Board board) {
+    this.frontierCount = 0;
+    int size = board.size;
+    for (int r = this.row0; r < this.row1; r++) {
+      for (int col = this.col0; col < this.col1; col++) {
+        int i = r * size + col;
+        if (board.isFlooded(i) && (this.open(board, r - 1, col, i - size)
+            || this.open(board, r, col - 1, i - 1) || this.open(board, r, col + 1, i + 1)
+            || this.open(board, r + 1, col, i + size))) {
+          this.addFrontier(i);
+        }
+      }
+    }
+    this.rescan = false;
+  }
+
+  // returns true if the cell i at row r and column col is on the board and unflooded.
+  // cells of other tiles are read without tearing as their tiles flood them
+  boolean open(Board board, int r, int col, int i) {
+    if (r < 0 || col < 0 || r >= board.size || col >= board.size) {
+      return false;
+    }
+    if (r < this.row0 || r >= this.row1 || col < this.col0 || col >= this.col1) {
+      long word = (long) TileFloodEngine.FLOODED.getOpaque(board.flooded, i >>> 6);
+      return (word & (1L << i)) == 0;
+    }
+    return !board.isFlooded(i);
+  }
+
+  // adds a cell to the frontier
+  void addFrontier(int i) {
+    if (this.frontierCount == this.frontier.length) {
+      this.frontier = Arrays.copyOf(this.frontier, this.frontierCount * 2);
+    }
+    this.frontier[this.frontierCount++] = i;
+  }
+
+  // posts a seed to the tile
+  void post(int i) {
+    if (this.inCount == this.inbox.length) {
+      this.inbox = Arrays.copyOf(this.inbox, this.inCount * 2);
+    }
+    this.inbox[this.inCount++] = i;
+  }
+
+  // floods the tile with the palette color c from its frontier when seeding and from the
+  // seeds posted to it, posting the cells across its edges that it reaches. a frontier
+  // cell stays on the frontier while it still has an unflooded neighbor
+  void flood(Board board, int c) {
+    int size = board.size;
+    if (this.rescan) {
+      this.findFrontier(board);
+    }
+    if (this.seeding) {
+      int kept = 0;
+      for (int k = 0; k < this.frontierCount; k++) {
+        int i = this.frontier[k];
+        int r = i / size;
+        int col = i - r * size;
+        boolean open = this.reach(board, r - 1, col, i - size, c);
+        open = this.reach(board, r, col - 1, i - 1, c) || open;
+        open = this.reach(board, r, col + 1, i + 1, c) || open;
+        open = this.reach(board, r + 1, col, i + size, c) || open;
+        if (open) {
+          this.frontier[kept++] = i;
+        }
+      }
+      this.frontierCount = kept;
+    }
+    for (int k = 0; k < this.inCount; k++) {
+      this.visit(board, this.inbox[k], c);
+    }
+    this.inCount = 0;
+    while (this.top > 0) {
+      int i = this.stack[--this.top];
+      int r = i / size;
+      int col = i - r * size;
+      this.reach(board, r - 1, col, i - size, c);
+      this.reach(board, r, col - 1, i - 1, c);
+      this.reach(board, r, col + 1, i + 1, c);
+      this.reach(board, r + 1, col, i + size, c);
+    }
+  }
+
+  // visits the cell i at row r and column col if it is on the board, or posts it if it
+  // belongs to another tile and has the color c. returns true if the cell may still be
+  // unflooded after the move
+  boolean reach(Board board, int r, int col, int i, int c) {
+    if (r < 0 || col < 0 || r >= board.size || col >= board.size) {
+      return false;
+    }
+    if (r < this.row0 || r >= this.row1 || col < this.col0 || col >= this.col1) {
+      if (!this.open(board, r, col, i)) {
+        return false;
+      }
+      if (board.colors[i] == c) {
+        if (this.outCount == this.outbox.length) {
+          this.outbox = Arrays.copyOf(this.outbox, this.outCount * 2);
+        }
+        this.outbox[this.outCount++] = i;
+      }
+      return true;
+    }
+    this.visit(board, i, c);
+    return !board.isFlooded(i);
+  }
+
+  // floods the given cell of the tile and queues its neighbors if it is unflooded and of
+  // the color c. the colors of unflooded cells never change during a move, so tiles read
+  // them across their edges freely
+  void visit(Board board, int i, int c) {
+    if (board.colors[i] == c && !board.isFlooded(i)) {
+      long before = (long) TileFloodEngine.FLOODED.getAndBitwiseOr(board.flooded, i >>> 6,
+          1L << i);
+      if ((before & (1L << i)) == 0) {
+        if (this.gained == this.gainedCells.length) {
+          this.gainedCells = Arrays.copyOf(this.gainedCells, this.gained * 2);
+        }
+        this.gainedCells[this.gained++] = i;
+      }
+      this.push(i);
+    }
+  }
+
+  // queues the given cell to have its neighbors visited
+  void push(int i) {
+    if (this.top == this.stack.length) {
+      this.stack = Arrays.copyOf(this.stack, this.top * 2);
+    }
+    this.stack[this.top++] = i;
+  }
+}
@@ -0,0 +1,208 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//represents a flood that works on the board directly, like WaveEngine, but splits the
+//board into square tiles and floods the tiles concurrently on a fork-join pool. every tile
+//only writes its own cells: a fill that reaches the edge of its tile posts the cell across
+//the edge as a seed for the tile that owns it, and the seeds are handed over between
+//rounds until a round posts none. every tile keeps a frontier of its flooded cells that
+//may touch unflooded ones, so a move starts from the edge of the flood rather than from
+//every flooded cell. moves only set flooded bits, and the flooded cells are recolored when
+//the board is stored, so a move costs as much as the frontier and the cells it floods
+class TileFloodEngine implements FloodEngine {
+  // sets flooded bits atomically, as tiles side by side share the longs of their rows
+  static final VarHandle FLOODED = MethodHandles.arrayElementVarHandle(long[].class);
+
+  final ForkJoinPool pool;
+  final int tileSize;
+  Board board;
+  // the tiles in row-major order, tilesPerSide of them along each side, and the tiles
+  // flooded in the current round
+  Tile[] tiles;
+  Tile[] active;
+  int tilesPerSide;
+  int color;
+  // the number of rounds the last move took
+  int rounds;
+  // the journal the cells newly flooded by every move are added to, or null
+  MoveJournal journal;
+
+  // constructor, flooding 256 by 256 tiles on the common pool
+  TileFloodEngine() {
+    this(ForkJoinPool.commonPool(), 256);
+  }
+
+  // constructor
+  TileFloodEngine(ForkJoinPool pool, int tileSize) {
+    if (tileSize < 1) {
+      throw new IllegalArgumentException("Tile size must be positive");
+    }
+    this.pool = pool;
+    this.tileSize = tileSize;
+  }
+
+  // returns true for GRID4, the only topology that can be flooded along the tile edges
+  public boolean supports(Topology topology) {
+    return topology == Topology.GRID4;
+  }
+
+  // rebuilds the engine's state from the given board and floods the region of its
+  // top-left cell
+  public void load(Board board) {
+    if (!this.supports(board.topology)) {
+      throw new IllegalArgumentException("Cannot flood a " + board.topology + " board");
+    }
+    this.board = board;
+    this.tilesPerSide = (board.size + this.tileSize - 1) / this.tileSize;
+    this.tiles = new Tile[this.tilesPerSide * this.tilesPerSide];
+    this.active = new Tile[this.tiles.length];
+    board.setFlooded(0);
+    for (int t = 0; t < this.tiles.length; t++) {
+      int row0 = t / this.tilesPerSide * this.tileSize;
+      int col0 = t % this.tilesPerSide * this.tileSize;
+      this.tiles[t] = new Tile(row0, Math.min(board.size, row0 + this.tileSize), col0,
+          Math.min(board.size, col0 + this.tileSize));
+      this.tiles[t].findFrontier(board);
+    }
+    this.move(board.color(0));
+  }
+
+  // returns the tile that owns the given cell
+  Tile tileOf(int i) {
+    int size = this.board.size;
+    return this.tiles[i / size / this.tileSize * this.tilesPerSide
+        + i % size / this.tileSize];
+  }
+
+  // floods the region of the top-left cell with the palette color c until nothing more
+  // can be flooded. the first round starts every tile with a frontier from its frontier,
+  // and every later round starts the tiles that were posted seeds from the seeds
+  public void move(int c) {
+    this.color = c;
+    Tile[] active = this.active;
+    int count = 0;
+    for (Tile tile : this.tiles) {
+      tile.seeding = tile.rescan || tile.frontierCount > 0;
+      if (tile.seeding) {
+        active[count++] = tile;
+      }
+    }
+    this.rounds = 0;
+    while (count > 0) {
+      this.rounds++;
+      this.pool.invoke(new TileTask(this, active, 0, count, c));
+      count = 0;
+      for (Tile tile : this.tiles) {
+        tile.seeding = false;
+        for (int k = 0; k < tile.outCount; k++) {
+          Tile target = this.tileOf(tile.outbox[k]);
+          if (target.inCount == 0) {
+            active[count++] = target;
+          }
+          target.post(tile.outbox[k]);
+        }
+        tile.outCount = 0;
+      }
+    }
+    // the cells newly flooded still have the color c
+    for (Tile tile : this.tiles) {
+      this.board.floodedCount += tile.gained;
+      this.board.floodedByColor[c] += tile.gained;
+      for (int k = 0; k < tile.gained; k++) {
+        tile.addFrontier(tile.gainedCells[k]);
+        if (this.journal != null) {
+          this.journal.add(tile.gainedCells[k]);
+        }
+      }
+      tile.gained = 0;
+    }
+  }
+
+  // returns the palette color of the flooded region
+  public int color() {
+    return this.color;
+  }
+
+  // returns the palette color of the given cell
+  public int colorAt(int i) {
+    return this.board.isFlooded(i) ? this.color : this.board.color(i);
+  }
+
+  // returns the number of flooded cells
+  public int floodedCount() {
+    return this.board.floodedCount;
+  }
+
+  // recolors the flooded cells
+  public void store() {
+    this.board.recolorFlooded(this.color);
+  }
+
+  // adds the cells every later move newly floods to the given journal
+  public void journal(MoveJournal journal) {
+    this.journal = journal;
+  }
+
+  // takes back the last move by unflooding its cells, at a cost in the number of cells it
+  // flooded. the tiles of the cells and of their neighbors find their frontiers again on
+  // the next move
+  public void undo(int prev, int c, int[] cells, int count) {
+    int size = this.board.size;
+    for (int k = 0; k < count; k++) {
+      int i = cells[k];
+      this.board.unflood(i);
+      this.board.setColor(i, c);
+      this.tileOf(i).rescan = true;
+      int r = i / size;
+      int col = i - r * size;
+      if (r > 0) {
+        this.tileOf(i - size).rescan = true;
+      }
+      if (col > 0) {
+        this.tileOf(i - 1).rescan = true;
+      }
+      if (col + 1 < size) {
+        this.tileOf(i + 1).rescan = true;
+      }
+      if (r + 1 < size) {
+        this.tileOf(i + size).rescan = true;
+      }
+    }
+    this.color = prev;
+  }
+}
+
+//represents flooding some of the tiles that are active in a round, splitting them in
+//halves until a single tile is left
+class TileTask extends RecursiveAction {
+  static final long serialVersionUID = 1L;
+
+  final TileFloodEngine engine;
+  final Tile[] active;
+  final int from;
+  final int to;
+  final int color;
+
+  // constructor
+  TileTask(TileFloodEngine engine, Tile[] active, int from, int to, int color) {
+    this.engine = engine;
+    this.active = active;
+    this.from = from;
+    this.to = to;
+    this.color = color;
+  }
+
+  // floods the active tiles from up to to
+  protected void compute() {
+    if (this.to - this.from > 1) {
+      int mid = (this.from + this.to) >>> 1;
+      invokeAll(new TileTask(this.engine, this.active, this.from, mid, this.color),
+          new TileTask(this.engine, this.active, mid, this.to, this.color));
+    }
+    else {
+      this.active[this.from].flood(this.engine.board, this.color);
+    }
+  }
+}
@@ -0,0 +1,199 @@
+//represents which cells of a square board touch each other, and so which cells a flood
+//can spread between. a topology lists the neighbors of every cell of a board of a given
+//size as an Adjacency in compressed sparse rows, so no topology makes an object per cell
+//and every flood stays a walk over int arrays. GRID4, the board the game has always been
+//played on, is the exception: boards of it find their neighbors from the cell index
+abstract class Topology {
+  // the four cells above, left, right and below, without wrapping
+  static final Topology GRID4 = new Grid4Topology();
+  // the eight cells around, without wrapping
+  static final Topology GRID8 = new Grid8Topology();
+  // the six cells around a hexagon, with every odd row pushed half a cell along
+  static final Topology HEX = new HexTopology();
+  // the four cells above, left, right and below, wrapping around every edge
+  static final Topology TORUS = new TorusTopology();
+  // every topology, by id
+  static final Topology[] ALL = { GRID4, GRID8, HEX, TORUS };
+
+  // the id saved boards refer to the topology by, and its name
+  final int id;
+  final String name;
+  // the most neighbors a cell can have
+  final int degree;
+  // true if every odd row is drawn half a cell along
+  final boolean staggered;
+
+  // constructor
+  Topology(int id, String name, int degree, boolean staggered) {
+    this.id = id;
+    this.name = name;
+    this.degree = degree;
+    this.staggered = staggered;
+  }
+
+  // returns the topology of the given name
+  static Topology named(String name) {
+    for (Topology topology : ALL) {
+      if (topology.name.equals(name)) {
+        return topology;
+      }
+    }
+    throw new IllegalArgumentException("Unknown topology " + name);
+  }
+
+  // returns the topology of the given id
+  static Topology withId(int id) {
+    if (id < 0 || id >= ALL.length) {
+      throw new IllegalArgumentException("Unknown topology id " + id);
+    }
+    return ALL[id];
+  }
+
+  // writes the neighbors of cell i of a size by size board into out, in the order a flood
+  // visits them, and returns how many there are. row r = i / size and column i % size
+  abstract int neighbors(int size, int i, int[] out);
+
+  // returns the neighbors of every cell of a size by size board
+  Adjacency adjacency(int size) {
+    int cells = size * size;
+    if ((long) cells * this.degree > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Board too big for " + this.name + " adjacency");
+    }
+    int[] out = new int[this.degree];
+    int[] offsets = new int[cells + 1];
+    for (int i = 0; i < cells; i++) {
+      offsets[i + 1] = offsets[i] + this.neighbors(size, i, out);
+    }
+    int[] neighbors = new int[offsets[cells]];
+    for (int i = 0; i < cells; i++) {
+      this.neighbors(size, i, out);
+      System.arraycopy(out, 0, neighbors, offsets[i], offsets[i + 1] - offsets[i]);
+    }
+    return new Adjacency(offsets, neighbors);
+  }
+
+  // returns the name of the topology
+  public String toString() {
+    return this.name;
+  }
+}
+
+//represents the square board with four neighbors per cell, in the order of Board.top,
+//left, right and bottom
+class Grid4Topology extends Topology {
+  // constructor
+  Grid4Topology() {
+    super(0, "grid4", 4, false);
+  }
+
+  // writes the neighbors of cell i that exist
+  int neighbors(int size, int i, int[] out) {
+    int r = i / size;
+    int col = i % size;
+    int n = 0;
+    if (r > 0) {
+      out[n++] = i - size;
+    }
+    if (col > 0) {
+      out[n++] = i - 1;
+    }
+    if (col < size - 1) {
+      out[n++] = i + 1;
+    }
+    if (r < size - 1) {
+      out[n++] = i + size;
+    }
+    return n;
+  }
+}
+
+//represents the square board with the diagonal cells as neighbors too, row by row from
+//the row above
+class Grid8Topology extends Topology {
+  // constructor
+  Grid8Topology() {
+    super(1, "grid8", 8, false);
+  }
+
+  // writes the neighbors of cell i that exist
+  int neighbors(int size, int i, int[] out) {
+    int r = i / size;
+    int col = i % size;
+    int n = 0;
+    for (int dr = -1; dr <= 1; dr++) {
+      for (int dc = -1; dc <= 1; dc++) {
+        int nr = r + dr;
+        int nc = col + dc;
+        if ((dr != 0 || dc != 0) && nr >= 0 && nr < size && nc >= 0 && nc < size) {
+          out[n++] = nr * size + nc;
+        }
+      }
+    }
+    return n;
+  }
+}
+
+//represents a board of hexagons in offset rows: every odd row sits half a cell further
+//along than the even rows, so a cell touches two cells in each of the rows above and
+//below it and one on each side in its own row
+class HexTopology extends Topology {
+  // constructor
+  HexTopology() {
+    super(2, "hex", 6, true);
+  }
+
+  // writes the neighbors of cell i that exist
+  int neighbors(int size, int i, int[] out) {
+    int r = i / size;
+    int col = i % size;
+    // the columns of the two touching cells in the rows above and below
+    int lo = (r & 1) == 0 ? col - 1 : col;
+    int n = 0;
+    if (r > 0) {
+      n = this.pair(size, r - 1, lo, out, n);
+    }
+    if (col > 0) {
+      out[n++] = i - 1;
+    }
+    if (col < size - 1) {
+      out[n++] = i + 1;
+    }
+    if (r < size - 1) {
+      n = this.pair(size, r + 1, lo, out, n);
+    }
+    return n;
+  }
+
+  // writes the cells of row r at the columns lo and lo + 1 that exist, starting at out[n],
+  // and returns the new count
+  int pair(int size, int r, int lo, int[] out, int n) {
+    if (lo >= 0) {
+      out[n++] = r * size + lo;
+    }
+    if (lo + 1 < size) {
+      out[n++] = r * size + lo + 1;
+    }
+    return n;
+  }
+}
+
+//represents the square board with its opposite edges joined, so every cell has four
+//neighbors in the order of Board.top, left, right and bottom. on boards narrower than
+//three cells some of them are the same cell, or the cell itself
+class TorusTopology extends Topology {
+  // constructor
+  TorusTopology() {
+    super(3, "torus", 4, false);
+  }
+
+  // writes the four neighbors of cell i
+  int neighbors(int size, int i, int[] out) {
+    int r = i / size;
+    int col = i % size;
+    out[0] = (r + size - 1) % size * size + col;
+    out[1] = r * size + (col + size - 1) % size;
+    out[2] = r * size + (col + 1) % size;
+    out[3] = (r + 1) % size * size + col;
+    return 4;
+  }
+}
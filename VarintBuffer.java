@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+//represents a growable array of bytes holding unsigned LEB128 varints: 7 bits per byte,
+//low bits first, with the top bit set on every byte but the last. values below 128 take a
+//single byte
+class VarintBuffer {
+  byte[] bytes;
+  // the number of bytes written
+  int length;
+  // where the next read starts
+  int position;
+
+  // constructor
+  VarintBuffer() {
+    this.bytes = new byte[64];
+  }
+
+  // constructor, reading the given bytes
+  VarintBuffer(byte[] bytes, int length) {
+    this.bytes = bytes;
+    this.length = length;
+  }
+
+  // appends one byte
+  void write(int b) {
+    if (this.length == this.bytes.length) {
+      this.bytes = Arrays.copyOf(this.bytes, this.length * 2);
+    }
+    this.bytes[this.length++] = (byte) b;
+  }
+
+  // appends a non-negative value as a varint
+  void writeVarint(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Varints must not be negative");
+    }
+    this.writeUnsigned(value);
+  }
+
+  // appends the 64 bits of value as an unsigned varint
+  void writeUnsigned(long value) {
+    while ((value & ~0x7FL) != 0) {
+      this.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    this.write((int) value);
+  }
+
+  // appends a value that may be negative as a zigzag varint, so small values of either sign
+  // take few bytes
+  void writeSigned(long value) {
+    this.writeUnsigned((value << 1) ^ (value >> 63));
+  }
+
+  // reads one byte
+  int read() {
+    if (this.position >= this.length) {
+      throw new IllegalStateException("Read past the end of the buffer");
+    }
+    return this.bytes[this.position++] & 0xFF;
+  }
+
+  // reads a varint
+  long readVarint() {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = this.read();
+      value |= (long) (b & 0x7F) << shift;
+      if (b < 0x80) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Varint longer than 64 bits");
+  }
+
+  // reads a zigzag varint
+  long readSigned() {
+    long value = this.readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  // returns true if every written byte has been read
+  boolean atEnd() {
+    return this.position >= this.length;
+  }
+
+  // returns the written bytes
+  byte[] toByteArray() {
+    return Arrays.copyOf(this.bytes, this.length);
+  }
+}
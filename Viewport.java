@@ -0,0 +1,136 @@
+//represents the part of a board shown in a rectangle of the screen. at zoom z >= 0 every
+//cell is 2^z pixels wide, and at zoom z < 0 every pixel shows a block of 2^-z by 2^-z
+//cells, drawn from level -z of the board's MipMap. cell x = i / size runs along the screen
+//x axis like in BoardLayout, and (panX, panY) is the cell at the top-left pixel. when
+//zoomed out the pan is kept on whole blocks. the odd columns of a staggered board are
+//pushed half a cell down once a cell is at least two pixels wide
+class Viewport {
+  // the most pixels a cell is drawn with is 2^MAX_ZOOM
+  static final int MAX_ZOOM = 5;
+
+  final int left;
+  final int top;
+  final int width;
+  final int height;
+  int size;
+  // the lowest zoom, at which the whole board is a single pixel
+  int minZoom;
+  int zoom;
+  int panX;
+  int panY;
+  // true to stagger the columns of a HEX board, as BoardLayout does
+  boolean staggered;
+
+  // constructor
+  Viewport(int left, int top, int width, int height) {
+    this.left = left;
+    this.top = top;
+    this.width = width;
+    this.height = height;
+  }
+
+  // shows the whole of a board of the given size with a MipMap of the given levels, at
+  // the highest zoom it fits at
+  void fit(int size, int levels) {
+    this.size = size;
+    this.minZoom = 1 - levels;
+    this.zoom = MAX_ZOOM;
+    while (this.zoom > this.minZoom
+        && (this.cellsAcross(this.width) < size || this.cellsAcross(this.height) < size)) {
+      this.zoom--;
+    }
+    this.panX = 0;
+    this.panY = 0;
+  }
+
+  // returns the number of cells the given number of pixels shows along an axis
+  int cellsAcross(int pixels) {
+    return this.zoom >= 0 ? pixels >> this.zoom : pixels << -this.zoom;
+  }
+
+  // returns the number of cells along each side of a block shown by one pixel, at least 1
+  int block() {
+    return this.zoom >= 0 ? 1 : 1 << -this.zoom;
+  }
+
+  // zooms in by the given number of steps, or out when negative, keeping the cell at the
+  // center of the view in place
+  void zoomBy(int steps) {
+    int centerX = this.panX + this.cellsAcross(this.width) / 2;
+    int centerY = this.panY + this.cellsAcross(this.height) / 2;
+    this.zoom = Math.max(this.minZoom, Math.min(MAX_ZOOM, this.zoom + steps));
+    this.panX = centerX - this.cellsAcross(this.width) / 2;
+    this.panY = centerY - this.cellsAcross(this.height) / 2;
+    this.clamp();
+  }
+
+  // pans by the given fractions of the view along each axis
+  void panBy(double fx, double fy) {
+    this.panX += (int) Math.round(fx * Math.max(1, this.cellsAcross(this.width)));
+    this.panY += (int) Math.round(fy * Math.max(1, this.cellsAcross(this.height)));
+    this.clamp();
+  }
+
+  // keeps the view on the board and the pan on whole blocks
+  void clamp() {
+    this.panX = this.clampAxis(this.panX, this.cellsAcross(this.width));
+    this.panY = this.clampAxis(this.panY, this.cellsAcross(this.height));
+  }
+
+  // returns the pan along an axis showing the given number of cells, kept on the board
+  // and rounded down to a whole block
+  int clampAxis(int pan, int across) {
+    int clamped = Math.max(0, Math.min(pan, this.size - across));
+    return clamped - clamped % this.block();
+  }
+
+  // returns how many pixels down the cells of column x are pushed
+  int shift(int x) {
+    return this.staggered && this.zoom > 0 && (x & 1) != 0 ? 1 << (this.zoom - 1) : 0;
+  }
+
+  // returns the index of the cell under the given screen position, or -1 if there is
+  // none. when zoomed out, it is the top-left cell of the block under the position
+  int cellAt(int px, int py) {
+    if (px < this.left || py < this.top || px >= this.left + this.width
+        || py >= this.top + this.height) {
+      return -1;
+    }
+    int x = this.panX + this.cellsAcross(px - this.left);
+    if (x >= this.size) {
+      return -1;
+    }
+    int y = this.panY + this.cellsAcross(py - this.top - this.shift(x));
+    if (y < 0 || y >= this.size) {
+      return -1;
+    }
+    return x * this.size + y;
+  }
+
+  // returns the screen x coordinate of the center of the pixels drawn for the given cell,
+  // or for the block holding it when zoomed out, which may be out of view
+  int screenX(int i) {
+    int level = Math.max(0, -this.zoom);
+    int pixels = 1 << Math.max(0, this.zoom);
+    return this.left + ((i / this.size >> level) - (this.panX >> level)) * pixels + pixels / 2;
+  }
+
+  // returns the screen y coordinate of the center of the pixels drawn for the given cell,
+  // or for the block holding it when zoomed out, which may be out of view
+  int screenY(int i) {
+    int level = Math.max(0, -this.zoom);
+    int pixels = 1 << Math.max(0, this.zoom);
+    return this.top + ((i % this.size >> level) - (this.panY >> level)) * pixels + pixels / 2
+        + this.shift(i / this.size);
+  }
+
+  // returns the screen x coordinate of the center of the view
+  int centerX() {
+    return this.left + this.width / 2;
+  }
+
+  // returns the screen y coordinate of the center of the view
+  int centerY() {
+    return this.top + this.height / 2;
+  }
+}
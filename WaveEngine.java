@@ -0,0 +1,71 @@
+//represents the original cell by cell flood: each move runs Board.floodStep until the
+//frontier is empty, working directly on the board
+class WaveEngine implements FloodEngine {
+  Board board;
+  Frontier frontier;
+  int color;
+  // the journal the cells newly flooded by every move are added to, or null
+  MoveJournal journal;
+
+  // returns true, as the wave follows the neighbors of any topology
+  public boolean supports(Topology topology) {
+    return true;
+  }
+
+  // rebuilds the engine's state from the given board and floods the region of its
+  // top-left cell, reusing the frontier of a board of the same size
+  public void load(Board board) {
+    if (this.board == null || this.board.cells != board.cells) {
+      this.frontier = new Frontier(board.cells);
+    }
+    this.frontier.clear();
+    this.board = board;
+    this.color = -1;
+    this.move(board.color(0));
+  }
+
+  // floods the region of the top-left cell with the palette color c until nothing more
+  // can be flooded
+  public void move(int c) {
+    this.color = c;
+    this.frontier.add(0);
+    while (this.frontier.size() > 0) {
+      this.board.floodStep(this.frontier, c, this.journal);
+    }
+  }
+
+  // returns the palette color of the flooded region
+  public int color() {
+    return this.color;
+  }
+
+  // returns the palette color of the given cell
+  public int colorAt(int i) {
+    return this.board.color(i);
+  }
+
+  // returns the number of flooded cells
+  public int floodedCount() {
+    return this.board.floodedCount;
+  }
+
+  // the board is always up to date
+  public void store() {
+    return;
+  }
+
+  // adds the cells every later move newly floods to the given journal
+  public void journal(MoveJournal journal) {
+    this.journal = journal;
+  }
+
+  // takes back the last move by unflooding its cells, which still have the color c, and
+  // recoloring the cells left flooded, which costs as much as the move did
+  public void undo(int prev, int c, int[] cells, int count) {
+    for (int k = 0; k < count; k++) {
+      this.board.unflood(cells[k]);
+    }
+    this.board.recolorFlooded(prev);
+    this.color = prev;
+  }
+}
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+//represents the wave of the last move applied at once by FloodItGame.applyMove. the move
+//is flooded breadth first, in the same order Board.floodStep would flood it, and every
+//cell it recolors is recorded with its color from before the move, grouped into layers by
+//its distance from the top-left cell. the board already holds the result of the move, and
+//the layers are revealed one per tick so the wave can still be drawn spreading
+class WaveReplay {
+  // the cells the move recolored, nearest first: layer d is order[layerStart[d]] up to
+  // order[layerStart[d + 1]], the cells d ticks away from the top-left cell
+  int[] order;
+  int count;
+  int[] layerStart;
+  int layers;
+  // the number of layers revealed so far
+  int shown;
+  // the color every pending cell had before the move
+  final byte[] before;
+  // one bit per cell, set while the cell was recolored by the move but not revealed yet
+  final long[] pending;
+
+  // constructor, for a board with the given number of cells
+  WaveReplay(int cells) {
+    this.order = new int[Math.max(16, Math.min(cells, 1 << 16))];
+    this.layerStart = new int[16];
+    this.before = new byte[cells];
+    this.pending = new long[(cells + 63) >>> 6];
+  }
+
+  // floods the region of the top-left cell of the board with the palette color c until
+  // nothing more can be flooded, recording the wave and leaving every recorded cell
+  // pending. the board must be settled, and the previous wave finished
+  void record(Board board, int c) {
+    this.count = 0;
+    this.layers = 0;
+    this.shown = 0;
+    this.recolor(board, 0, c);
+    int k = 0;
+    while (k < this.count) {
+      this.startLayer(k);
+      int end = this.count;
+      for (; k < end; k++) {
+        int i = this.order[k];
+        Adjacency adjacency = board.adjacency;
+        if (adjacency != null) {
+          for (int n = adjacency.offsets[i]; n < adjacency.offsets[i + 1]; n++) {
+            this.visit(board, adjacency.neighbors[n], c);
+          }
+        }
+        else {
+          this.visit(board, board.top(i), c);
+          this.visit(board, board.left(i), c);
+          this.visit(board, board.right(i), c);
+          this.visit(board, board.bottom(i), c);
+        }
+      }
+    }
+    this.startLayer(this.count);
+    this.layers--;
+  }
+
+  // recolors the given cell if it exists, has not been recolored by this move yet, and
+  // is flooded XOR of the color c
+  void visit(Board board, int i, int c) {
+    if (i >= 0 && !this.isPending(i) && ((board.colors[i] == c) ^ board.isFlooded(i))) {
+      this.recolor(board, i, c);
+    }
+  }
+
+  // records the given cell and floods it with the color c
+  void recolor(Board board, int i, int c) {
+    if (this.count == this.order.length) {
+      this.order = Arrays.copyOf(this.order, this.count * 2);
+    }
+    this.order[this.count++] = i;
+    this.before[i] = board.colors[i];
+    this.pending[i >>> 6] |= 1L << i;
+    board.setFlooded(i);
+    board.setColor(i, c);
+  }
+
+  // starts a new layer at the given position of order
+  void startLayer(int k) {
+    if (this.layers == this.layerStart.length) {
+      this.layerStart = Arrays.copyOf(this.layerStart, this.layers * 2);
+    }
+    this.layerStart[this.layers++] = k;
+  }
+
+  // returns the distance from the top-left cell of the k-th recorded cell
+  int distance(int k) {
+    int layer = Arrays.binarySearch(this.layerStart, 0, this.layers, k);
+    return layer >= 0 ? layer : -layer - 2;
+  }
+
+  // returns true while some layers have not been revealed
+  boolean playing() {
+    return this.shown < this.layers;
+  }
+
+  // reveals the next layer, if there is one
+  void advance() {
+    if (this.playing()) {
+      for (int k = this.layerStart[this.shown]; k < this.layerStart[this.shown + 1]; k++) {
+        int i = this.order[k];
+        this.pending[i >>> 6] &= ~(1L << i);
+      }
+      this.shown++;
+    }
+  }
+
+  // reveals every layer left
+  void finish() {
+    while (this.playing()) {
+      this.advance();
+    }
+  }
+
+  // returns true if the given cell was recolored by the move but not revealed yet
+  boolean isPending(int i) {
+    return (this.pending[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // returns the palette index to draw the given cell of the board with
+  int shownColor(Board board, int i) {
+    return this.isPending(i) ? this.before[i] : board.colors[i];
+  }
+
+  // forgets the last move
+  void clear() {
+    this.finish();
+    this.count = 0;
+    this.layers = 0;
+    this.shown = 0;
+  }
+}